@@ -29,6 +29,7 @@ import carpet.api.settings.CarpetRule;
 import carpet.api.settings.InvalidRuleValueException;
 import carpet.api.settings.SettingsManager;
 import carpet.logging.HUDController;
+import carpet.logging.logHelpers.PacketCounter;
 import carpet.script.external.Carpet;
 import carpet.script.external.Vanilla;
 import carpet.script.utils.ParticleParser;
@@ -121,6 +122,7 @@ public class CarpetServer // static for now - easier to handle all around the co
     {
         ServerTickRateManager trm = ((MinecraftServerInterface)server).getTickRateManager();
         trm.tick();
+        PacketCounter.rollIfDue();
         HUDController.update_hud(server, null);
         if (scriptServer != null) scriptServer.tick();
 
@@ -176,6 +178,7 @@ public class CarpetServer // static for now - easier to handle all around the co
     {
         ServerNetworkHandler.onPlayerLoggedOut(player);
         LoggerRegistry.playerDisconnected(player);
+        PacketCounter.playerDisconnected(player.getScoreboardName());
         extensions.forEach(e -> e.onPlayerLoggedOut(player));
         // first case client, second case server
         CarpetScriptServer runningScriptServer = (player.getServer() == null) ? scriptServer : Vanilla.MinecraftServer_getScriptServer(player.getServer());
@@ -5,9 +5,11 @@ import carpet.api.settings.RuleCategory;
 import carpet.api.settings.Validators;
 import carpet.api.settings.Validator;
 import carpet.script.utils.AppStoreManager;
+import carpet.script.utils.ScriptProfiler;
 import carpet.settings.Rule;
 import carpet.utils.Translations;
 import carpet.utils.CommandHelper;
+import carpet.utils.CarpetProfiler;
 import carpet.utils.Messenger;
 import carpet.utils.SpawnChunks;
 import net.fabricmc.loader.api.FabricLoader;
@@ -439,6 +441,91 @@ public class CarpetSettings
     @Rule(desc = "Enables /tick command to control game clocks", category = COMMAND)
     public static String commandTick = "ops";
 
+    @Rule(
+            desc = "Paces ticks with nanosecond precision, instead of whole milliseconds",
+            extra = {
+                    "Keeps tick rates above 100 tps from drifting off the set one because of rounding",
+                    "Waits for the last fraction of a millisecond before each tick actively, using a bit more CPU",
+                    "Check achieved tick rates with /tick rate"
+            },
+            category = {CREATIVE, EXPERIMENTAL}
+    )
+    public static boolean preciseTickPacing = false;
+
+    public enum ParallelWarpMode {
+        FALSE, TRUE, CHECK
+    }
+
+    @Rule(
+            desc = "Ticks dimensions at the same time on separate threads during /tick warp",
+            extra = {
+                    "Only for dimensions that don't affect each other, like separate farms in each of them",
+                    "Entities going through portals are moved after all dimensions are done with the tick",
+                    "Scarpet apps, scoreboards, commands, functions and maps are used by one dimension at a time",
+                    "A dimension accessing chunks of another one finishes the tick while the other dimensions wait",
+                    "With check: ticks dimensions one after another, and logs where they access each other",
+                    "Not used while /profile, spawn tracking, /debug, /perf or JFR profiling is running"
+            },
+            category = {CREATIVE, EXPERIMENTAL}
+    )
+    public static ParallelWarpMode parallelWarp = ParallelWarpMode.FALSE;
+
+    private static class ProfilerHistoryValidator extends Validator<Integer>
+    {
+        @Override public Integer validate(CommandSourceStack source, CarpetRule<Integer> currentRule, Integer newValue, String string)
+        {
+            if (newValue < 0 || newValue > 72000)
+            {
+                return null;
+            }
+            CarpetProfiler.setHistorySize(newValue);
+            return newValue;
+        }
+        @Override
+        public String description() { return "You must choose a value from 0 to 72000";}
+    }
+
+    @Rule(
+            desc = "Number of last ticks to keep section times of, to look them up with /profile history",
+            extra = {
+                    "Allows to find what caused a lag spike after it happened",
+                    "Set to 0 to not collect them"
+            },
+            options = {"0", "1200", "6000", "72000"},
+            category = COMMAND,
+            strict = false,
+            validate = ProfilerHistoryValidator.class
+    )
+    public static int profilerHistory = 0;
+
+    private static class ScarpetProfilerSamplingValidator extends Validator<Integer>
+    {
+        @Override public Integer validate(CommandSourceStack source, CarpetRule<Integer> currentRule, Integer newValue, String string)
+        {
+            if (newValue < 0)
+            {
+                return null;
+            }
+            ScriptProfiler.setSampling(newValue);
+            return newValue;
+        }
+        @Override
+        public String description() { return "You must choose a value that is 0 or more";}
+    }
+
+    @Rule(
+            desc = "Times one in every that many scarpet calls by app, event and function, for system_info('scarpet_profile')",
+            extra = {
+                    "Sampled calls are counted as that many calls, so larger values are cheaper, but less precise",
+                    "Set to 1 to time every call, or 0 to not time them outside of /profile scarpet"
+            },
+            options = {"0", "1", "10", "100"},
+            category = {COMMAND, SCARPET},
+            strict = false,
+            validate = ScarpetProfilerSamplingValidator.class
+    )
+    public static int scarpetProfilerSampling = 0;
+
     @Rule(
             desc = "Enables /profile command to monitor game performance",
             extra = "subset of /tick command capabilities",
@@ -545,12 +632,40 @@ public class CarpetSettings
     )
     public static boolean scriptsDebugging = false;
 
+    private static class ScriptsOptimizationValidator extends Validator<Boolean>
+    {
+        @Override
+        public Boolean validate(CommandSourceStack source, CarpetRule<Boolean> changingRule, Boolean newValue, String userInput)
+        {
+            // cached /script run expressions were compiled with the old setting
+            if (changingRule.value() ^ newValue && CarpetServer.scriptServer != null)
+            {
+                CarpetServer.scriptServer.expressionCache.clear();
+            }
+            return newValue;
+        }
+    }
+
     @Rule(
             desc = "Enables scripts optimization",
-            category = SCARPET
+            category = SCARPET,
+            validate = ScriptsOptimizationValidator.class
     )
     public static boolean scriptsOptimization = true;
 
+    @Rule(
+            desc = "Maximum number of threads in each pool of scarpet tasks",
+            extra = {
+                    "Applies to all apps, including pools configured by apps themselves",
+                    "Set to 0 to not limit the number of threads"
+            },
+            options = {"0", "4", "16", "64"},
+            category = SCARPET,
+            strict = false,
+            validate = Validators.NonNegativeNumber.class
+    )
+    public static int scriptsTaskThreadLimit = 0;
+
     private static class ScarpetAppStore extends Validator<String> {
         @Override
         public String validate(CommandSourceStack source, CarpetRule<String> currentRule, String newValue, String stringInput) {
@@ -597,6 +712,16 @@ public class CarpetSettings
     @Rule(desc = "Spawn offline players in online mode if online-mode player with specified name does not exist", category = COMMAND)
     public static boolean allowSpawningOfflinePlayers = true;
 
+    @Rule(
+            desc = "Hours to keep profiles and skins of players spawned with /player in the world folder",
+            extra = "Set to 0 to look them up every time",
+            options = {"0", "24", "168", "720"},
+            category = COMMAND,
+            strict = false,
+            validate = Validators.NonNegativeNumber.class
+    )
+    public static int fakePlayerProfileCacheTime = 168;
+
     @Rule(desc = "Allows listing fake players on the multiplayer screen", category = COMMAND)
     public static boolean allowListingFakePlayers = false;
 
@@ -67,6 +67,7 @@ public class PlayerCommand
                                         .executes(c -> manipulate(c, ap -> ap.setSlot(IntegerArgumentType.getInteger(c, "slot"))))))
                         .then(literal("kill").executes(PlayerCommand::kill))
                         .then(literal("shadow"). executes(PlayerCommand::shadow))
+                        .then(literal("traces").executes(PlayerCommand::traces))
                         .then(literal("mount").executes(manipulation(ap -> ap.mount(true)))
                                 .then(literal("anything").executes(manipulation(ap -> ap.mount(false)))))
                         .then(literal("dismount").executes(manipulation(EntityPlayerActionPack::dismount)))
@@ -194,26 +195,25 @@ public class PlayerCommand
             Messenger.m(context.getSource(), "r Player ", "rb " + playerName, "r  is already logged on");
             return true;
         }
-        GameProfile profile = server.getProfileCache().get(playerName).orElse(null);
-        if (profile == null)
+        return false;
+    }
+
+    private static boolean cantSpawn(CommandSourceStack source, GameProfile profile)
+    {
+        PlayerList manager = source.getServer().getPlayerList();
+        if (manager.getPlayer(profile.getId()) != null)
         {
-            if (!CarpetSettings.allowSpawningOfflinePlayers)
-            {
-                Messenger.m(context.getSource(), "r Player "+playerName+" is either banned by Mojang, or auth servers are down. " +
-                        "Banned players can only be summoned in Singleplayer and in servers in off-line mode.");
-                return true;
-            } else {
-                profile = new GameProfile(UUIDUtil.createOfflinePlayerUUID(playerName), playerName);
-            }
+            Messenger.m(source, "r Player ", "rb " + profile.getName(), "r  is already logged on");
+            return true;
         }
         if (manager.getBans().isBanned(profile))
         {
-            Messenger.m(context.getSource(), "r Player ", "rb " + playerName, "r  is banned on this server");
+            Messenger.m(source, "r Player ", "rb " + profile.getName(), "r  is banned on this server");
             return true;
         }
-        if (manager.isUsingWhitelist() && manager.isWhiteListed(profile) && !context.getSource().hasPermission(2))
+        if (manager.isUsingWhitelist() && manager.isWhiteListed(profile) && !source.hasPermission(2))
         {
-            Messenger.m(context.getSource(), "r Whitelisted players can only be spawned by operators");
+            Messenger.m(source, "r Whitelisted players can only be spawned by operators");
             return true;
         }
         return false;
@@ -226,6 +226,16 @@ public class PlayerCommand
         return 1;
     }
 
+    private static int traces(CommandContext<CommandSourceStack> context)
+    {
+        if (cantManipulate(context)) return 0;
+        ServerPlayer player = getPlayer(context);
+        long[] stats = ((ServerPlayerInterface) player).getActionPack().getTraceStats();
+        Messenger.m(context.getSource(), "w Target traces of " + player.getScoreboardName() + ": ",
+                "wb " + stats[0], "w  reused, ", "wb " + stats[1], "w  traced again");
+        return 1;
+    }
+
     @FunctionalInterface
     interface SupplierWithCSE<T>
     {
@@ -293,10 +303,11 @@ public class PlayerCommand
             Messenger.m(source, "rb Player " + playerName + " cannot be placed outside of the world");
             return 0;
         }
+        // checks that need the player's profile run once it's looked up, without blocking the server
         EntityPlayerMPFake.createFake(playerName, source.getServer(), pos, facing.y, facing.x, dimType, mode, flying, () -> {
-            Messenger.m(source, "rb Player " + playerName + " doesn't exist and cannot spawn in online mode. " +
-                    "Turn the server offline to spawn non-existing players");
-        });
+            Messenger.m(source, "r Player "+playerName+" is either banned by Mojang, or auth servers are down. " +
+                    "Banned players can only be summoned in Singleplayer and in servers in off-line mode.");
+        }, profile -> !cantSpawn(source, profile));
         return 1;
     }
 
@@ -9,7 +9,9 @@ import net.minecraft.commands.CommandBuildContext;
 import net.minecraft.commands.CommandSourceStack;
 
 import static carpet.commands.TickCommand.healthEntities;
+import static carpet.commands.TickCommand.healthHistory;
 import static carpet.commands.TickCommand.healthReport;
+import static carpet.commands.TickCommand.healthScarpet;
 import static com.mojang.brigadier.arguments.IntegerArgumentType.getInteger;
 import static com.mojang.brigadier.arguments.IntegerArgumentType.integer;
 import static net.minecraft.commands.Commands.argument;
@@ -29,7 +31,15 @@ public class ProfileCommand
                 then(literal("entities").
                         executes((c) -> healthEntities(c.getSource(), 100)).
                         then(argument("ticks", integer(20,24000)).
-                                executes((c) -> healthEntities(c.getSource(), getInteger(c, "ticks")))));
+                                executes((c) -> healthEntities(c.getSource(), getInteger(c, "ticks"))))).
+                then(literal("scarpet").
+                        executes((c) -> healthScarpet(c.getSource(), 100)).
+                        then(argument("ticks", integer(20,24000)).
+                                executes((c) -> healthScarpet(c.getSource(), getInteger(c, "ticks"))))).
+                then(literal("history").
+                        executes((c) -> healthHistory(c.getSource(), 100)).
+                        then(argument("ticks", integer(1,72000)).
+                                executes((c) -> healthHistory(c.getSource(), getInteger(c, "ticks")))));
         dispatcher.register(literalargumentbuilder);
     }
 }
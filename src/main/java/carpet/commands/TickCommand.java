@@ -64,7 +64,11 @@ public class TickCommand
                 then(literal("entities").
                         executes((c) -> healthEntities(c.getSource(), 100)).
                         then(argument("ticks", integer(20,24000)).
-                                executes((c) -> healthEntities(c.getSource(), getInteger(c, "ticks")))));
+                                executes((c) -> healthEntities(c.getSource(), getInteger(c, "ticks"))))).
+                then(literal("history").
+                        executes((c) -> healthHistory(c.getSource(), 100)).
+                        then(argument("ticks", integer(1,72000)).
+                                executes((c) -> healthHistory(c.getSource(), getInteger(c, "ticks")))));
 
 
         dispatcher.register(literalargumentbuilder);
@@ -84,6 +88,7 @@ public class TickCommand
         ServerTickRateManager trm = ((MinecraftServerInterface)source.getServer()).getTickRateManager();
 
         Messenger.m(source, "w Current tps is: ",String.format("wb %.1f", trm.tickrate()));
+        trm.reportPacing(source);
         return (int) trm.tickrate();
     }
 
@@ -167,4 +172,16 @@ public class TickCommand
         return 1;
     }
 
+    public static int healthScarpet(CommandSourceStack source, int ticks)
+    {
+        CarpetProfiler.prepare_scarpet_report(source, ticks);
+        return 1;
+    }
+
+    public static int healthHistory(CommandSourceStack source, int ticks)
+    {
+        CarpetProfiler.report_history(source, ticks);
+        return 1;
+    }
+
 }
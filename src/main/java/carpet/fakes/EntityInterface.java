@@ -1,6 +1,7 @@
 package carpet.fakes;
 
 import carpet.script.EntityEventsGroup;
+import net.minecraft.nbt.CompoundTag;
 
 public interface EntityInterface
 {
@@ -19,4 +20,8 @@ public interface EntityInterface
     int getPublicNetherPortalCooldown();
     void setPublicNetherPortalCooldown(int what);
 
+    CompoundTag getNbtSnapshot();
+
+    void invalidateNbtSnapshot();
+
 }
@@ -25,4 +25,8 @@ public interface LevelInterface
     NeighborUpdater getNeighborUpdater();
 
     TickRateManager tickRateManager();
+
+    int[] getProfilerSections();
+
+    void setProfilerSections(int[] ids);
 }
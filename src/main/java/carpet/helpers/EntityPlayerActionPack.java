@@ -1,6 +1,7 @@
 package carpet.helpers;
 
 import carpet.fakes.ServerPlayerInterface;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
@@ -24,7 +25,10 @@ import net.minecraft.world.entity.decoration.ItemFrame;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.vehicle.Boat;
 import net.minecraft.world.entity.vehicle.Minecart;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.BlockHitResult;
 import net.minecraft.world.phys.EntityHitResult;
@@ -32,6 +36,8 @@ import net.minecraft.world.phys.HitResult;
 import net.minecraft.world.phys.Vec2;
 import net.minecraft.world.phys.Vec3;
 
+import javax.annotation.Nullable;
+
 public class EntityPlayerActionPack
 {
     private final ServerPlayer player;
@@ -50,6 +56,11 @@ public class EntityPlayerActionPack
 
     private int itemUseCooldown;
 
+    @Nullable
+    private BlockTrace blockTrace;
+    private long traceSkips;
+    private long traceRecomputes;
+
     public EntityPlayerActionPack(ServerPlayer playerIn)
     {
         player = playerIn;
@@ -251,7 +262,82 @@ public class EntityPlayerActionPack
     static HitResult getTarget(ServerPlayer player)
     {
         double reach = player.gameMode.isCreative() ? 5 : 4.5f;
-        return Tracer.rayTrace(player, 1, reach, false);
+        EntityPlayerActionPack ap = ((ServerPlayerInterface) player).getActionPack();
+        BlockHitResult blockHit = ap.traceBlocks(reach);
+        double maxSqDist = blockHit.getLocation().distanceToSqr(player.getEyePosition(1));
+        // entities move on their own, so they are always traced again
+        EntityHitResult entityHit = Tracer.rayTraceEntities(player, 1, reach, maxSqDist);
+        return entityHit == null ? blockHit : entityHit;
+    }
+
+    private BlockHitResult traceBlocks(double reach)
+    {
+        if (blockTrace != null && blockTrace.matches(player, reach))
+        {
+            traceSkips++;
+            return blockTrace.hit();
+        }
+        traceRecomputes++;
+        BlockHitResult hit = Tracer.rayTraceBlocks(player, 1, reach, false);
+        blockTrace = BlockTrace.of(player, reach, hit);
+        return hit;
+    }
+
+    /**
+     * @return number of block traces of actions that were reused, and that had to be traced again
+     */
+    public long[] getTraceStats()
+    {
+        return new long[]{traceSkips, traceRecomputes};
+    }
+
+    /**
+     * Block hit of the player's target, valid as long as the player doesn't move, look around, sneak,
+     * or change the held item, and the blocks along the ray up to the hit stay the same.
+     */
+    private record BlockTrace(Level level, Vec3 eyes, float yRot, float xRot, double reach, boolean sneaking, Item heldItem,
+                              BlockHitResult hit, BlockPos[] path, BlockState[] states)
+    {
+        static BlockTrace of(ServerPlayer player, double reach, BlockHitResult hit)
+        {
+            Level level = player.level();
+            Vec3 eyes = player.getEyePosition(1);
+            List<BlockPos> path = new ArrayList<>();
+            BlockGetter.traverseBlocks(eyes, hit.getLocation(), path, (positions, pos) -> {
+                positions.add(pos.immutable());
+                return null;
+            }, positions -> null);
+            if (hit.getType() == HitResult.Type.BLOCK && !path.contains(hit.getBlockPos()))
+            {
+                path.add(hit.getBlockPos());
+            }
+            BlockState[] states = new BlockState[path.size()];
+            for (int i = 0; i < states.length; i++)
+            {
+                states[i] = level.getBlockState(path.get(i));
+            }
+            return new BlockTrace(level, eyes, player.getYRot(), player.getXRot(), reach, player.isShiftKeyDown(),
+                    player.getMainHandItem().getItem(), hit, path.toArray(new BlockPos[0]), states);
+        }
+
+        boolean matches(ServerPlayer player, double reach)
+        {
+            if (player.level() != level || reach != this.reach || player.getYRot() != yRot || player.getXRot() != xRot
+                    || player.isShiftKeyDown() != sneaking || player.getMainHandItem().getItem() != heldItem
+                    || !player.getEyePosition(1).equals(eyes))
+            {
+                return false;
+            }
+            for (int i = 0; i < path.length; i++)
+            {
+                // block states are interned
+                if (level.getBlockState(path[i]) != states[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
     private void dropItemFromSlot(int slot, boolean dropAll)
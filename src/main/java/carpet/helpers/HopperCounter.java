@@ -111,7 +111,7 @@ public class HopperCounter
      * {@link HopperCounter#startMillis} variables are initialised, so you can place the counters and then start the farm
      * after all the collection is sorted out.
      */
-    public void add(MinecraftServer server, ItemStack stack)
+    public synchronized void add(MinecraftServer server, ItemStack stack)
     {
         if (startTick < 0)
         {
@@ -126,7 +126,7 @@ public class HopperCounter
     /**
      * Resets the counter, clearing its items but keeping the clock running.
      */
-    public void reset(MinecraftServer server)
+    public synchronized void reset(MinecraftServer server)
     {
         counter.clear();
         startTick = server.overworld().getGameTime();
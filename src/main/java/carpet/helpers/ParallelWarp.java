@@ -0,0 +1,295 @@
+package carpet.helpers;
+
+import carpet.CarpetSettings;
+import carpet.fakes.MinecraftServerInterface;
+import carpet.mixins.LevelThreadAccessor;
+import carpet.mixins.ServerChunkCacheThreadAccessor;
+import carpet.utils.CarpetProfiler;
+import carpet.utils.SpawnReporter;
+import net.minecraft.CrashReport;
+import net.minecraft.ReportedException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.profiling.InactiveProfiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Ticks dimensions on separate threads during tick warp, with {@link CarpetSettings#parallelWarp}.
+ * Each worker becomes the owning thread of its level for the tick, so chunk and block entity access doesn't bounce
+ * to the server thread, and the server thread waits for all of them before it goes on with the tick.
+ * Entities changing dimensions are moved once all dimensions are done.
+ * <p>
+ * State shared between dimensions is changed by one worker at a time, under the shared lock: scarpet apps,
+ * the scoreboard, commands, including command blocks, functions, and map data, which lives in the overworld.
+ * Raids are kept per level, so they need no guarding, and carpet counters synchronize on their own.
+ * <p>
+ * When a worker reaches into chunks of another dimension, it takes the shared lock for the rest of its tick,
+ * waits until the other dimension finished, or stopped at the shared lock, and then borrows it, so the rest
+ * of the tick runs one dimension at a time instead of failing.
+ * In check mode dimensions are ticked one after another on the workers, and accesses to chunks of other
+ * dimensions are logged.
+ */
+public class ParallelWarp
+{
+    private static final AtomicInteger WORKER_COUNT = new AtomicInteger();
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "Carpet Warp Worker-" + WORKER_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ThreadLocal<ServerLevel> TICKING = new ThreadLocal<>();
+    private static final List<CompletableFuture<Void>> tasks = new ArrayList<>();
+    private static final Queue<Runnable> deferred = new ConcurrentLinkedQueue<>();
+    private static final Set<String> reportedAccesses = new HashSet<>();
+    private static final ReentrantLock SHARED_LOCK = new ReentrantLock();
+    // levels that still have to finish their tick, and the workers ticking them, once they started
+    private static final Set<ServerLevel> ticking = ConcurrentHashMap.newKeySet();
+    private static final Map<ServerLevel, Thread> workers = new ConcurrentHashMap<>();
+    // levels of other workers used by the holder of the shared lock, with the threads they go back to
+    private static final Map<ServerLevel, Thread> borrowed = new HashMap<>();
+    // checked on each chunk access, so it is a plain flag rather than the thread local
+    private static volatile boolean active = false;
+
+    private static boolean enabled(MinecraftServer server)
+    {
+        // carpet profiler keeps its state in plain maps, spawn tracking counts spawns of the one level that
+        // is spawning mobs, and levels push and pop sections on the one profiler of the server,
+        // which is not thread safe while /debug, /perf or JFR run
+        return CarpetSettings.parallelWarp != CarpetSettings.ParallelWarpMode.FALSE
+                && ((MinecraftServerInterface) server).getTickRateManager().isInWarpSpeed()
+                && !CarpetProfiler.isProfiling()
+                && !SpawnReporter.trackingSpawns()
+                && server.getProfiler() == InactiveProfiler.INSTANCE;
+    }
+
+    /**
+     * Ticks the level, either right away, or on a worker when warping
+     */
+    public static void tickLevel(ServerLevel level, BooleanSupplier haveTime)
+    {
+        if (!active)
+        {
+            if (!enabled(level.getServer()))
+            {
+                level.tick(haveTime);
+                return;
+            }
+            active = true;
+        }
+        boolean check = CarpetSettings.parallelWarp == CarpetSettings.ParallelWarpMode.CHECK;
+        // in check mode the worker owns all levels, so accesses across them can be reported and still work
+        Iterable<ServerLevel> owned = check ? level.getServer().getAllLevels() : List.of(level);
+        ticking.add(level);
+        CompletableFuture<Void> task = CompletableFuture.runAsync(() -> {
+            Thread worker = Thread.currentThread();
+            owned.forEach(l -> setOwner(l, worker));
+            TICKING.set(level);
+            workers.put(level, worker);
+            try
+            {
+                level.tick(haveTime);
+            }
+            catch (Throwable e)
+            {
+                CrashReport report = CrashReport.forThrowable(e, "Exception ticking world");
+                level.fillReportDetails(report);
+                throw new ReportedException(report);
+            }
+            finally
+            {
+                // held since reaching into another dimension, or left behind by a failure
+                while (SHARED_LOCK.isHeldByCurrentThread())
+                {
+                    unlockShared();
+                }
+                workers.remove(level);
+                ticking.remove(level);
+                TICKING.remove();
+            }
+        }, WORKERS);
+        tasks.add(task);
+        if (check)
+        {
+            task.handle((result, error) -> null).join();
+        }
+    }
+
+    /**
+     * Waits for all levels ticking on workers, gives them back to the server thread, and runs postponed actions
+     */
+    public static void awaitLevels(MinecraftServer server)
+    {
+        if (!active)
+        {
+            return;
+        }
+        active = false;
+        Throwable error = null;
+        for (CompletableFuture<Void> task : tasks)
+        {
+            try
+            {
+                task.join();
+            }
+            catch (CompletionException e)
+            {
+                if (error == null)
+                {
+                    error = e.getCause();
+                }
+            }
+        }
+        tasks.clear();
+        Thread serverThread = server.getRunningThread();
+        server.getAllLevels().forEach(level -> setOwner(level, serverThread));
+        if (error != null)
+        {
+            deferred.clear();
+            throw error instanceof RuntimeException runtime ? runtime : new RuntimeException(error);
+        }
+        Runnable action;
+        while ((action = deferred.poll()) != null)
+        {
+            action.run();
+        }
+    }
+
+    private static void setOwner(ServerLevel level, Thread thread)
+    {
+        ((LevelThreadAccessor) level).setThread(thread);
+        ((ServerChunkCacheThreadAccessor) level.getChunkSource()).setMainThread(thread);
+    }
+
+    /**
+     * Makes the holder of the shared lock the owner of another level, once that level is done ticking,
+     * or its worker waits for the shared lock, so it doesn't change while borrowed
+     */
+    private static void borrow(ServerLevel level)
+    {
+        while (ticking.contains(level))
+        {
+            Thread worker = workers.get(level);
+            if (worker != null && SHARED_LOCK.hasQueuedThread(worker))
+            {
+                break;
+            }
+            LockSupport.parkNanos(50_000L);
+        }
+        borrowed.put(level, ((LevelThreadAccessor) level).getThread());
+        setOwner(level, Thread.currentThread());
+    }
+
+    private static void returnBorrowed()
+    {
+        borrowed.forEach(ParallelWarp::setOwner);
+        borrowed.clear();
+    }
+
+    /**
+     * @return whether the action was postponed until all dimensions are done ticking,
+     * because it was called while ticking one of them on a worker
+     */
+    public static boolean deferUntilLevelsTicked(Runnable action)
+    {
+        if (!active || TICKING.get() == null)
+        {
+            return false;
+        }
+        deferred.add(action);
+        return true;
+    }
+
+    /**
+     * Scarpet apps expect to run one at a time, and the scoreboard, commands and map data are shared
+     * by all dimensions, so workers take turns using them
+     * @return whether the lock was taken, to be released with {@link #unlockShared}
+     */
+    public static boolean lockShared()
+    {
+        if (!active || TICKING.get() == null)
+        {
+            return false;
+        }
+        SHARED_LOCK.lock();
+        return true;
+    }
+
+    /**
+     * Releases the lock taken by {@link #lockShared}, does nothing when that didn't take it
+     */
+    public static void unlockShared()
+    {
+        if (!active || TICKING.get() == null)
+        {
+            return;
+        }
+        if (SHARED_LOCK.getHoldCount() == 1)
+        {
+            returnBorrowed();
+        }
+        SHARED_LOCK.unlock();
+    }
+
+    /**
+     * Called when chunks of a level are accessed. Other dimensions may be ticking at the same time,
+     * so the rest of the tick of this one runs while the others wait, or the access is logged in check mode.
+     */
+    public static void checkAccess(ServerLevel level)
+    {
+        if (!active)
+        {
+            return;
+        }
+        ServerLevel current = TICKING.get();
+        if (current == null || current == level)
+        {
+            return;
+        }
+        boolean check = CarpetSettings.parallelWarp == CarpetSettings.ParallelWarpMode.CHECK;
+        if (!check && SHARED_LOCK.isHeldByCurrentThread() && borrowed.containsKey(level))
+        {
+            return;
+        }
+        String access = current.dimension().location() + " accessed chunks of " + level.dimension().location();
+        synchronized (reportedAccesses)
+        {
+            StackTraceElement[] stack = Thread.currentThread().getStackTrace();
+            // reported once for each place it happens from
+            if (reportedAccesses.add(access + Arrays.hashCode(Arrays.copyOf(stack, Math.min(stack.length, 12)))))
+            {
+                CarpetSettings.LOG.warn(check
+                        ? "Dimensions are not independent: " + access
+                        : access + " while ticking dimensions in parallel, finishing the tick one dimension at a time, use parallelWarp check to find out why",
+                        new Throwable("Accessed from"));
+            }
+        }
+        if (check)
+        {
+            return;
+        }
+        if (!SHARED_LOCK.isHeldByCurrentThread())
+        {
+            // kept until this level is done ticking
+            SHARED_LOCK.lock();
+        }
+        borrow(level);
+    }
+}
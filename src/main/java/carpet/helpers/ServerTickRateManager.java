@@ -26,6 +26,13 @@ public class ServerTickRateManager extends TickRateManager
 
     private MinecraftServer server;
 
+    // intervals between starts of the last paced ticks, to compare them against the target one
+    private static final int PACING_SAMPLES = 1200;
+    private final long[] tickIntervals = new long[PACING_SAMPLES];
+    private int tickIntervalHead = 0;
+    private int tickIntervalCount = 0;
+    private long pacingTarget = 0;
+
     public ServerTickRateManager(MinecraftServer server) {
         this.server = server;
     }
@@ -36,6 +43,64 @@ public class ServerTickRateManager extends TickRateManager
     }
 
 
+    /**
+     * @return target time between starts of ticks, in nanoseconds, without the whole milliseconds rounding of {@link #mspt()}
+     */
+    public long nanosPerTick()
+    {
+        return Math.round(1.0E9 / tickrate);
+    }
+
+    /**
+     * Records the time between starts of two paced ticks. Recorded intervals are dropped when the target changes.
+     */
+    public void recordTickInterval(long nanos, long target)
+    {
+        if (target != pacingTarget)
+        {
+            pacingTarget = target;
+            tickIntervalHead = 0;
+            tickIntervalCount = 0;
+        }
+        tickIntervals[tickIntervalHead] = nanos;
+        tickIntervalHead = (tickIntervalHead + 1) % PACING_SAMPLES;
+        tickIntervalCount = Math.min(tickIntervalCount + 1, PACING_SAMPLES);
+    }
+
+    /**
+     * Shows how the recorded tick intervals compare to the target one
+     */
+    public void reportPacing(CommandSourceStack source)
+    {
+        if (tickIntervalCount == 0)
+        {
+            Messenger.m(source, "g No paced ticks recorded yet");
+            return;
+        }
+        long total = 0L;
+        long min = Long.MAX_VALUE;
+        long max = 0L;
+        for (int i = 0; i < tickIntervalCount; i++)
+        {
+            long interval = tickIntervals[i];
+            total += interval;
+            min = Math.min(min, interval);
+            max = Math.max(max, interval);
+        }
+        double mean = (double) total / tickIntervalCount;
+        double variance = 0.0;
+        for (int i = 0; i < tickIntervalCount; i++)
+        {
+            double deviation = tickIntervals[i] - mean;
+            variance += deviation * deviation;
+        }
+        double jitter = Math.sqrt(variance / tickIntervalCount);
+        Messenger.m(source, String.format("g Over last %d ticks: ", tickIntervalCount),
+                String.format("w %.3fms", mean / 1.0E6), String.format("g  per tick (target %.3fms), ", pacingTarget / 1.0E6),
+                String.format("w %.2f", 1.0E9 / mean), "g  tps achieved");
+        Messenger.m(source, String.format("g Jitter: %.3fms, range %.3fms to %.3fms", jitter / 1.0E6, min / 1.0E6, max / 1.0E6));
+    }
+
     @Override
     public boolean shouldEntityTick(Entity e)
     {
@@ -146,10 +146,12 @@ public class HUDController
     }
     private static Component [] packetCounter()
     {
-        Component [] ret =  new Component[]{
-                Messenger.c("w I/" + PacketCounter.totalIn + " O/" + PacketCounter.totalOut),
+        PacketCounter.Counter in = PacketCounter.total(PacketCounter.Direction.IN);
+        PacketCounter.Counter out = PacketCounter.total(PacketCounter.Direction.OUT);
+        return new Component[]{
+                Messenger.c(String.format(Locale.US, "w I/%.0f %s/s O/%.0f %s/s",
+                        in.packetRate(), PacketCounter.formatBytes(in.byteRate()),
+                        out.packetRate(), PacketCounter.formatBytes(out.byteRate())))
         };
-        PacketCounter.reset();
-        return ret;
     }
 }
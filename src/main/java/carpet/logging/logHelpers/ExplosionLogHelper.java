@@ -29,7 +29,6 @@ public class ExplosionLogHelper
 
     private static long lastGametime = 0;
     private static int explosionCountInCurrentGT = 0;
-    private static boolean newTick;
 
     public ExplosionLogHelper(double x, double y, double z, float power, boolean createFire, Explosion.BlockInteraction blockDestructionType, RegistryAccess regs) {
         this.power = power;
@@ -46,24 +45,30 @@ public class ExplosionLogHelper
 
     public void onExplosionDone(long gametime)
     {
-        newTick = false;
-        if (!(lastGametime == gametime)){
-            explosionCountInCurrentGT = 0;
-            lastGametime = gametime;
-            newTick = true;
+        boolean newTick = false;
+        int count;
+        // counts are kept per tick for all dimensions, which may tick on separate threads
+        synchronized (ExplosionLogHelper.class)
+        {
+            if (!(lastGametime == gametime)){
+                explosionCountInCurrentGT = 0;
+                lastGametime = gametime;
+                newTick = true;
+            }
+            count = ++explosionCountInCurrentGT;
         }
-        explosionCountInCurrentGT++;
+        boolean firstInTick = newTick;
         LoggerRegistry.getLogger("explosions").log( (option) -> {
             List<Component> messages = new ArrayList<>();
-            if(newTick) messages.add(c("wb tick : ", "d " + gametime));
+            if(firstInTick) messages.add(c("wb tick : ", "d " + gametime));
             if ("brief".equals(option))
             {
-                messages.add( c("d #" + explosionCountInCurrentGT,"gb ->",
+                messages.add( c("d #" + count,"gb ->",
                         Messenger.dblt("l", pos.x, pos.y, pos.z), (affectBlocks)?"m  (affects blocks)":"m  (doesn't affect blocks)" ));
             }
             if ("full".equals(option))
             {
-                messages.add( c("d #" + explosionCountInCurrentGT,"gb ->", Messenger.dblt("l", pos.x, pos.y, pos.z) ));
+                messages.add( c("d #" + count,"gb ->", Messenger.dblt("l", pos.x, pos.y, pos.z) ));
                 messages.add(c("w   affects blocks: ", "m " + this.affectBlocks));
                 messages.add(c("w   creates fire: ", "m " + this.createFire));
                 messages.add(c("w   power: ", "c " + this.power));
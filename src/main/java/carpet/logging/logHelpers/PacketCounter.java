@@ -1,8 +1,189 @@
 package carpet.logging.logHelpers;
 
+import net.minecraft.network.Connection;
+import net.minecraft.network.ConnectionProtocol;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Network traffic by direction, packet type and player. Updated from netty threads, so all counters are
+ * {@link LongAdder}s. Packets are counted as they are sent or handled by a connection, and bytes as they
+ * are encoded or decoded, so in-memory connections of singleplayer hosts have no byte sizes or packet types.
+ * Types are named by the protocol and packet id, like {@code play/0x25}.
+ */
 public class PacketCounter
 {
-    public static long totalOut=0;
-    public static long totalIn=0;
-    public static void reset() {totalIn = 0L; totalOut = 0L; }
+    public enum Direction
+    {
+        IN, OUT
+    }
+
+    public static class Counter
+    {
+        private final LongAdder packets = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private long lastPackets = 0;
+        private long lastBytes = 0;
+        private volatile double packetRate = 0;
+        private volatile double byteRate = 0;
+
+        private void add(int packetCount, int byteCount)
+        {
+            packets.add(packetCount);
+            bytes.add(byteCount);
+        }
+
+        private void roll(double seconds)
+        {
+            long currentPackets = packets.sum();
+            long currentBytes = bytes.sum();
+            packetRate = (currentPackets - lastPackets) / seconds;
+            byteRate = (currentBytes - lastBytes) / seconds;
+            lastPackets = currentPackets;
+            lastBytes = currentBytes;
+        }
+
+        public long packets()
+        {
+            return packets.sum();
+        }
+
+        public long bytes()
+        {
+            return bytes.sum();
+        }
+
+        public double packetRate()
+        {
+            return packetRate;
+        }
+
+        public double byteRate()
+        {
+            return byteRate;
+        }
+    }
+
+    private static final Map<Direction, Counter> totals = new EnumMap<>(Direction.class);
+    // keyed with protocol and packet id packed together, to not build type names for each packet
+    private static final Map<Direction, Map<Integer, Counter>> byType = new EnumMap<>(Direction.class);
+    private static final Map<Direction, Map<String, Counter>> byPlayer = new EnumMap<>(Direction.class);
+    private static final long ROLL_INTERVAL = 1_000_000_000L;
+    private static long lastRoll = System.nanoTime();
+
+    static
+    {
+        for (Direction direction : Direction.values())
+        {
+            totals.put(direction, new Counter());
+            byType.put(direction, new ConcurrentHashMap<>());
+            byPlayer.put(direction, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Called when a connection sends or handles a packet
+     */
+    public static void countPacket(Direction direction, Connection connection)
+    {
+        totals.get(direction).add(1, 0);
+        String player = playerOf(connection);
+        if (player != null)
+        {
+            byPlayer.get(direction).computeIfAbsent(player, p -> new Counter()).add(1, 0);
+        }
+    }
+
+    /**
+     * Called when a packet is encoded or decoded
+     */
+    public static void countBytes(Direction direction, ConnectionProtocol protocol, int packetId, @Nullable Connection connection, int size)
+    {
+        totals.get(direction).add(0, size);
+        byType.get(direction).computeIfAbsent(protocol.ordinal() << 16 | packetId, t -> new Counter()).add(1, size);
+        String player = playerOf(connection);
+        if (player != null)
+        {
+            byPlayer.get(direction).computeIfAbsent(player, p -> new Counter()).add(0, size);
+        }
+    }
+
+    @Nullable
+    private static String playerOf(@Nullable Connection connection)
+    {
+        // keyed with player names so players that left don't hold the reference,
+        // and stragglers of closed connections don't bring back counters of players that left
+        return connection != null && connection.isConnected() && connection.getPacketListener() instanceof ServerGamePacketListenerImpl game ? game.player.getScoreboardName() : null;
+    }
+
+    /**
+     * Updates per second rates with the traffic since the last update, once a second of wall clock time went by.
+     * Called every tick, rates are then taken over intervals of about the same length, however fast the server ticks.
+     */
+    public static void rollIfDue()
+    {
+        long now = System.nanoTime();
+        if (now - lastRoll < ROLL_INTERVAL)
+        {
+            return;
+        }
+        double seconds = (now - lastRoll) / 1.0E9;
+        lastRoll = now;
+        for (Direction direction : Direction.values())
+        {
+            totals.get(direction).roll(seconds);
+            byType.get(direction).values().forEach(c -> c.roll(seconds));
+            byPlayer.get(direction).values().forEach(c -> c.roll(seconds));
+        }
+    }
+
+    /**
+     * Player totals are kept for as long as the player stays connected
+     */
+    public static void playerDisconnected(String player)
+    {
+        for (Direction direction : Direction.values())
+        {
+            byPlayer.get(direction).remove(player);
+        }
+    }
+
+    public static Counter total(Direction direction)
+    {
+        return totals.get(direction);
+    }
+
+    public static Map<String, Counter> byType(Direction direction)
+    {
+        Map<String, Counter> types = new HashMap<>();
+        byType.get(direction).forEach((key, counter) -> types.put(String.format(Locale.US, "%s/0x%02x",
+                ConnectionProtocol.values()[key >> 16].name().toLowerCase(Locale.ROOT), key & 0xffff), counter));
+        return types;
+    }
+
+    public static Map<String, Counter> byPlayer(Direction direction)
+    {
+        return Collections.unmodifiableMap(byPlayer.get(direction));
+    }
+
+    public static String formatBytes(double bytes)
+    {
+        if (bytes < 1024)
+        {
+            return String.format(Locale.US, "%.0fB", bytes);
+        }
+        if (bytes < 1024 * 1024)
+        {
+            return String.format(Locale.US, "%.1fkB", bytes / 1024);
+        }
+        return String.format(Locale.US, "%.1fMB", bytes / (1024 * 1024));
+    }
 }
@@ -28,18 +28,23 @@ public class TNTLogHelper
      */
     public void onExploded(double x, double y, double z, long gametime)
     {
-        if (!(lastGametime == gametime)){
-            tntCount = 0;
-            lastGametime = gametime;
+        int count;
+        // counts are kept per tick for all dimensions, which may tick on separate threads
+        synchronized (TNTLogHelper.class)
+        {
+            if (!(lastGametime == gametime)){
+                tntCount = 0;
+                lastGametime = gametime;
+            }
+            count = ++tntCount;
         }
-        tntCount++;
         LoggerRegistry.getLogger("tnt").log( (option) -> switch (option) {
             case "brief" -> new Component[]{Messenger.c(
                     "l P ", Messenger.dblt("l", primedX, primedY, primedZ),
                     "w  ", Messenger.dblt("l", primedAngle.x, primedAngle.y, primedAngle.z),
                     "r  E ", Messenger.dblt("r", x, y, z))};
             case "full" -> new Component[]{Messenger.c(
-                    "r #" + tntCount,
+                    "r #" + count,
                     "m @" + gametime,
                     "g : ",
                     "l P ", Messenger.dblf("l", primedX, primedY, primedZ),
@@ -16,20 +16,20 @@ import net.minecraft.server.level.ServerLevel;
 public class ChunkMap_tickMixin
 {
     @Shadow @Final ServerLevel level;
-    CarpetProfiler.ProfilerToken currentSection;
+    long currentSection;
 
     @Inject(method = "tick(Ljava/util/function/BooleanSupplier;)V", at = @At("HEAD"))
     private void startProfilerSection(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        currentSection = CarpetProfiler.start_section(level, "Unloading", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
 
     @Inject(method = "tick(Ljava/util/function/BooleanSupplier;)V", at = @At("RETURN"))
     private void stopProfilerSecion(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        if (currentSection != null)
+        if (currentSection != 0L)
         {
-            CarpetProfiler.end_current_section(currentSection);
+            CarpetProfiler.end_section(level, CarpetProfiler.LevelSection.UNLOADING, currentSection);
         }
     }
 }
@@ -0,0 +1,25 @@
+package carpet.mixins;
+
+import carpet.helpers.ParallelWarp;
+import net.minecraft.commands.Commands;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(Commands.class)
+public class Commands_parallelWarpMixin
+{
+    // commands from command blocks can change anything on the server, so they run one at a time
+    @Inject(method = "performCommand", at = @At("HEAD"))
+    private void lockCommand(CallbackInfoReturnable<Integer> cir)
+    {
+        ParallelWarp.lockShared();
+    }
+
+    @Inject(method = "performCommand", at = @At("RETURN"))
+    private void unlockCommand(CallbackInfoReturnable<Integer> cir)
+    {
+        ParallelWarp.unlockShared();
+    }
+}
@@ -23,14 +23,14 @@ public abstract class Connection_packetCounterMixin implements ClientConnectionI
     @Inject(method = "channelRead0", at = @At("HEAD"))
     private void packetInCount(ChannelHandlerContext channelHandlerContext_1, Packet<?> packet_1, CallbackInfo ci)
     {
-        PacketCounter.totalIn++;
+        PacketCounter.countPacket(PacketCounter.Direction.IN, (Connection) (Object) this);
     }
     
     // Add to the packet counter whenever a packet is sent.
     @Inject(method = "sendPacket", at = @At("HEAD"))
     private void packetOutCount(final Packet<?> packet, final PacketSendListener packetSendListener, final boolean bl, final CallbackInfo ci)
     {
-        PacketCounter.totalOut++;
+        PacketCounter.countPacket(PacketCounter.Direction.OUT, (Connection) (Object) this);
     }
 
     @Override
@@ -2,6 +2,8 @@ package carpet.mixins;
 
 import carpet.fakes.EntityInterface;
 import carpet.patches.EntityPlayerMPFake;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.Mth;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LivingEntity;
@@ -9,8 +11,10 @@ import net.minecraft.world.level.Level;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(Entity.class)
@@ -26,6 +30,14 @@ public abstract class EntityMixin implements EntityInterface
 
     @Shadow public Level level;
 
+    @Shadow public abstract CompoundTag saveWithoutId(CompoundTag compoundTag);
+
+    @Shadow public abstract @Nullable MinecraftServer getServer();
+
+    // entities write their nbt all at once, so nbt path queries within one tick share a single serialization
+    @Unique private CompoundTag nbtSnapshot;
+    @Unique private int nbtSnapshotTick;
+
     @Override
     public float getMainYaw(float partialTicks)
     {
@@ -37,4 +49,32 @@ public abstract class EntityMixin implements EntityInterface
     {
         if (getControllingPassenger() instanceof EntityPlayerMPFake) cir.setReturnValue(!level.isClientSide);
     }
+
+    @Override
+    public CompoundTag getNbtSnapshot()
+    {
+        MinecraftServer server = getServer();
+        if (server == null)
+        {
+            return saveWithoutId(new CompoundTag());
+        }
+        if (nbtSnapshot == null || nbtSnapshotTick != server.getTickCount())
+        {
+            nbtSnapshot = saveWithoutId(new CompoundTag());
+            nbtSnapshotTick = server.getTickCount();
+        }
+        return nbtSnapshot;
+    }
+
+    @Override
+    public void invalidateNbtSnapshot()
+    {
+        nbtSnapshot = null;
+    }
+
+    @Inject(method = "load", at = @At("HEAD"))
+    private void onLoad(CompoundTag compoundTag, CallbackInfo ci)
+    {
+        nbtSnapshot = null;
+    }
 }
@@ -0,0 +1,29 @@
+package carpet.mixins;
+
+import carpet.helpers.ParallelWarp;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(Entity.class)
+public class Entity_parallelWarpMixin
+{
+    // moving between dimensions touches both of them, so it waits until neither is ticking
+    @Inject(method = "changeDimension", at = @At("HEAD"), cancellable = true)
+    private void deferDimensionChange(ServerLevel destination, CallbackInfoReturnable<Entity> cir)
+    {
+        Entity entity = (Entity) (Object) this;
+        if (ParallelWarp.deferUntilLevelsTicked(() -> {
+            if (!entity.isRemoved())
+            {
+                entity.changeDimension(destination);
+            }
+        }))
+        {
+            cir.setReturnValue(null);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package carpet.mixins;
+
+import net.minecraft.world.level.Level;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(Level.class)
+public interface LevelThreadAccessor
+{
+    @Accessor("thread")
+    @Mutable
+    void setThread(Thread thread);
+
+    @Accessor("thread")
+    Thread getThread();
+}
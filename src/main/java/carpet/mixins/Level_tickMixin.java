@@ -24,11 +24,15 @@ public abstract class Level_tickMixin implements LevelInterface
 {
     @Shadow @Final public boolean isClientSide;
     @Shadow @Final protected NeighborUpdater neighborUpdater;
-    CarpetProfiler.ProfilerToken currentSection;
+    long currentSection;
     CarpetProfiler.ProfilerToken entitySection;
 
     Map<EntityType<?>, Entity> precookedMobs = new HashMap<>();
 
+    // profiler section ids of this level, resolved the first time it is profiled
+    @Unique
+    private int[] profilerSections;
+
     @Override
     @Unique
     public NeighborUpdater getNeighborUpdater() {
@@ -41,14 +45,26 @@ public abstract class Level_tickMixin implements LevelInterface
         return precookedMobs;
     }
 
+    @Override
+    public int[] getProfilerSections()
+    {
+        return profilerSections;
+    }
+
+    @Override
+    public void setProfilerSections(int[] ids)
+    {
+        profilerSections = ids;
+    }
+
     @Inject(method = "tickBlockEntities", at = @At("HEAD"))
     private void startBlockEntities(CallbackInfo ci) {
-        currentSection = CarpetProfiler.start_section((Level) (Object) this, "Block Entities", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
 
     @Inject(method = "tickBlockEntities", at = @At("TAIL"))
     private void endBlockEntities(CallbackInfo ci) {
-        CarpetProfiler.end_current_section(currentSection);
+        CarpetProfiler.end_section((Level) (Object) this, CarpetProfiler.LevelSection.BLOCK_ENTITIES, currentSection);
     }
 
     @Inject(method = "guardEntityTick", at = @At("HEAD"), cancellable = true)
@@ -30,9 +30,9 @@ public abstract class MinecraftServer_coreMixin
             )
     )
     private void onTick(BooleanSupplier booleanSupplier_1, CallbackInfo ci) {
-        CarpetProfiler.ProfilerToken token = CarpetProfiler.start_section(null, "Carpet", CarpetProfiler.TYPE.GENERAL);
+        long sectionStart = CarpetProfiler.start_section();
         CarpetServer.tick((MinecraftServer) (Object) this);
-        CarpetProfiler.end_current_section(token);
+        CarpetProfiler.end_section(CarpetProfiler.CARPET, sectionStart);
     }
 
     @Inject(method = "loadLevel", at = @At("HEAD"))
@@ -0,0 +1,35 @@
+package carpet.mixins;
+
+import carpet.helpers.ParallelWarp;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.function.BooleanSupplier;
+
+@Mixin(MinecraftServer.class)
+public class MinecraftServer_parallelWarpMixin
+{
+    @Redirect(method = "tickChildren", at = @At(
+            value = "INVOKE",
+            target = "Lnet/minecraft/server/level/ServerLevel;tick(Ljava/util/function/BooleanSupplier;)V"
+    ))
+    private void tickLevel(ServerLevel level, BooleanSupplier haveTime)
+    {
+        ParallelWarp.tickLevel(level, haveTime);
+    }
+
+    @Inject(method = "tickChildren", at = @At(
+            value = "INVOKE",
+            target = "Lnet/minecraft/server/MinecraftServer;getConnection()Lnet/minecraft/server/network/ServerConnectionListener;",
+            shift = At.Shift.BEFORE
+    ))
+    private void awaitLevels(BooleanSupplier haveTime, CallbackInfo ci)
+    {
+        ParallelWarp.awaitLevels((MinecraftServer) (Object) this);
+    }
+}
@@ -1,5 +1,6 @@
 package carpet.mixins;
 
+import carpet.CarpetSettings;
 import carpet.fakes.MinecraftServerInterface;
 import carpet.helpers.ServerTickRateManager;
 import carpet.patches.CopyProfilerResult;
@@ -64,10 +65,19 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
     @Shadow protected abstract void endMetricsRecordingTick();
 
     @Shadow private boolean debugCommandProfilerDelayStart;
-    CarpetProfiler.ProfilerToken currentSection;
+    long currentSection;
 
     private float carpetMsptAccum = 0.0f;
 
+    // with precise pacing, when the next tick should start in Util.getNanos() time, vanilla nextTickTime follows it
+    private long carpetNextTickNanos = 0L;
+    private long carpetDelayedTasksMaxNanos = 0L;
+    // target interval of precise pacing, 0 when ticks are not paced precisely
+    private long carpetNanosPerTick = 0L;
+    private long carpetLastTickStart = 0L;
+    // parking the thread overshoots by tens of microseconds, so the rest of the wait is spent spinning
+    private static final long SPIN_WAIT_NANOS = 200_000L;
+
     private ServerTickRateManager serverTickRateManager;
 
     @Inject(method = "<init>", at = @At("RETURN"))
@@ -104,21 +114,39 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
         {
             //long long_1 = Util.getMeasuringTimeMs() - this.timeReference;
             //CM deciding on tick speed
-            if (CarpetProfiler.tick_health_requested != 0L)
+            if (CarpetProfiler.isProfiling())
             {
                 CarpetProfiler.start_tick_profiling();
             }
             long msThisTick = 0L;
+            long nanosThisTick = 0L;
             long long_1 = 0L;
             float mspt = serverTickRateManager.mspt();
+            long tickStart = Util.getNanos();
             if (serverTickRateManager.isInWarpSpeed() && serverTickRateManager.continueWarp())
             {
                 //making sure server won't flop after the warp or if the warp is interrupted
                 this.nextTickTime = this.lastOverloadWarning = Util.getMillis();
                 carpetMsptAccum = mspt;
+                carpetNanosPerTick = 0L;
+                carpetLastTickStart = 0L;
+            }
+            else if (CarpetSettings.preciseTickPacing)
+            {
+                nanosThisTick = serverTickRateManager.nanosPerTick();
+                if (nanosThisTick != carpetNanosPerTick)
+                {
+                    // just switched to precise pacing, or the tickrate changed, pacing starts over from now
+                    carpetNextTickNanos = tickStart;
+                    carpetNanosPerTick = nanosThisTick;
+                    carpetLastTickStart = 0L;
+                }
+                this.nextTickTime = carpetNextTickNanos / 1000000L;
+                long_1 = (tickStart - carpetNextTickNanos) / 1000000L;
             }
             else
             {
+                carpetNanosPerTick = 0L;
                 if (Math.abs(carpetMsptAccum - mspt) > 1.0f)
                 {
                 	// Tickrate changed. Ensure that we use the correct value.
@@ -137,6 +165,7 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
                 long long_2 = (long)(long_1 / mspt);//50L;
                 LOGGER.warn("Can't keep up! Is the server overloaded? Running {}ms or {} ticks behind", long_1, long_2);
                 this.nextTickTime += (long)(long_2 * mspt);//50L;
+                carpetNextTickNanos += long_2 * nanosThisTick;
                 this.lastOverloadWarning = this.nextTickTime;
             }
 
@@ -146,6 +175,25 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
                 //this.field_33978 = new MinecraftServer.class_6414(Util.getMeasuringTimeNano(), this.ticks);
             }
             this.nextTickTime += msThisTick;//50L;
+            if (carpetNanosPerTick != 0L)
+            {
+                // deadlines follow each other regardless of when ticks actually started, so late ticks don't add up
+                carpetNextTickNanos += nanosThisTick;
+                this.nextTickTime = carpetNextTickNanos / 1000000L;
+                if (carpetLastTickStart != 0L)
+                {
+                    serverTickRateManager.recordTickInterval(tickStart - carpetLastTickStart, nanosThisTick);
+                }
+                carpetLastTickStart = tickStart;
+            }
+            else if (msThisTick > 0L)
+            {
+                if (carpetLastTickStart != 0L)
+                {
+                    serverTickRateManager.recordTickInterval(tickStart - carpetLastTickStart, (long)(mspt * 1.0E6));
+                }
+                carpetLastTickStart = tickStart;
+            }
             //TickDurationMonitor tickDurationMonitor = TickDurationMonitor.create("Server");
             //this.startMonitor(tickDurationMonitor);
             this.startMetricsRecordingTick();
@@ -158,8 +206,16 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
             }
             this.mayHaveDelayedTasks = true;
             this.delayedTasksMaxNextTickTime = Math.max(Util.getMillis() + /*50L*/ msThisTick, this.nextTickTime);
+            carpetDelayedTasksMaxNanos = Math.max(Util.getNanos() + nanosThisTick, carpetNextTickNanos);
             // run all tasks (this will not do a lot when warping), but that's fine since we already run them
             this.waitUntilNextTick();
+            if (carpetNanosPerTick != 0L)
+            {
+                while (Util.getNanos() < carpetNextTickNanos)
+                {
+                    Thread.onSpinWait();
+                }
+            }
             this.profiler.pop();
             this.endMetricsRecordingTick();
             this.isReady = true;
@@ -167,6 +223,16 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
 
     }
 
+    @Inject(method = "haveTime", at = @At("HEAD"), cancellable = true)
+    private void haveTimePrecisely(CallbackInfoReturnable<Boolean> cir)
+    {
+        if (carpetNanosPerTick != 0L)
+        {
+            long deadline = this.mayHaveDelayedTasks ? carpetDelayedTasksMaxNanos : carpetNextTickNanos;
+            cir.setReturnValue(this.runningTask() || Util.getNanos() < deadline - SPIN_WAIT_NANOS);
+        }
+    }
+
     // just because profilerTimings class is public
     Pair<Long,Integer> profilerTimings = null;
     /// overworld around profiler timings
@@ -214,7 +280,7 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
     ))
     private void startAutosave(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        currentSection = CarpetProfiler.start_section(null, "Autosave", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
 
     @Inject(method = "tickServer", at = @At(
@@ -224,7 +290,7 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
     ))
     private void finishAutosave(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        CarpetProfiler.end_current_section(currentSection);
+        CarpetProfiler.end_section(CarpetProfiler.AUTOSAVE, currentSection);
     }
 
     @Inject(method = "tickChildren", at = @At(
@@ -234,7 +300,7 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
     ))
     private void startNetwork(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        currentSection = CarpetProfiler.start_section(null, "Network", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
 
     @Inject(method = "tickChildren", at = @At(
@@ -244,13 +310,13 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
     ))
     private void finishNetwork(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        CarpetProfiler.end_current_section(currentSection);
+        CarpetProfiler.end_section(CarpetProfiler.NETWORK, currentSection);
     }
 
     @Inject(method = "waitUntilNextTick", at = @At("HEAD"))
     private void startAsync(CallbackInfo ci)
     {
-        currentSection = CarpetProfiler.start_section(null, "Async Tasks", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
     @Inject(method = "waitUntilNextTick", at = @At(
             value = "INVOKE",
@@ -259,9 +325,9 @@ public abstract class MinecraftServer_tickspeedMixin extends ReentrantBlockableE
     ))
     private void stopAsync(CallbackInfo ci)
     {
-        if (CarpetProfiler.tick_health_requested != 0L)
+        if (CarpetProfiler.isProfiling())
         {
-            CarpetProfiler.end_current_section(currentSection);
+            CarpetProfiler.end_section(CarpetProfiler.ASYNC_TASKS, currentSection);
             CarpetProfiler.end_tick_profiling((MinecraftServer) (Object)this);
         }
     }
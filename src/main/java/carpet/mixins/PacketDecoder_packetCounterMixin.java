@@ -0,0 +1,31 @@
+package carpet.mixins;
+
+import carpet.logging.logHelpers.PacketCounter;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import net.minecraft.network.Connection;
+import net.minecraft.network.ConnectionProtocol;
+import net.minecraft.network.PacketDecoder;
+import net.minecraft.util.profiling.jfr.JvmProfiler;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+import java.net.SocketAddress;
+import java.util.List;
+
+@Mixin(PacketDecoder.class)
+public class PacketDecoder_packetCounterMixin
+{
+    // vanilla reports the decoded size of each packet to the jfr profiler, so we do the same
+    @Redirect(method = "decode", at = @At(
+            value = "INVOKE",
+            target = "Lnet/minecraft/util/profiling/jfr/JvmProfiler;onPacketReceived(Lnet/minecraft/network/ConnectionProtocol;ILjava/net/SocketAddress;I)V"
+    ))
+    private void countPacketBytes(JvmProfiler profiler, ConnectionProtocol protocol, int packetId, SocketAddress address, int size,
+                                  ChannelHandlerContext context, ByteBuf in, List<Object> out)
+    {
+        profiler.onPacketReceived(protocol, packetId, address, size);
+        PacketCounter.countBytes(PacketCounter.Direction.IN, protocol, packetId, context.pipeline().get("packet_handler") instanceof Connection c ? c : null, size);
+    }
+}
@@ -0,0 +1,31 @@
+package carpet.mixins;
+
+import carpet.logging.logHelpers.PacketCounter;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import net.minecraft.network.Connection;
+import net.minecraft.network.ConnectionProtocol;
+import net.minecraft.network.PacketEncoder;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.util.profiling.jfr.JvmProfiler;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+import java.net.SocketAddress;
+
+@Mixin(PacketEncoder.class)
+public class PacketEncoder_packetCounterMixin
+{
+    // vanilla reports the encoded size of each packet to the jfr profiler, so we do the same
+    @Redirect(method = "encode(Lio/netty/channel/ChannelHandlerContext;Lnet/minecraft/network/protocol/Packet;Lio/netty/buffer/ByteBuf;)V", at = @At(
+            value = "INVOKE",
+            target = "Lnet/minecraft/util/profiling/jfr/JvmProfiler;onPacketSent(Lnet/minecraft/network/ConnectionProtocol;ILjava/net/SocketAddress;I)V"
+    ))
+    private void countPacketBytes(JvmProfiler profiler, ConnectionProtocol protocol, int packetId, SocketAddress address, int size,
+                                  ChannelHandlerContext context, Packet<?> packet, ByteBuf out)
+    {
+        profiler.onPacketSent(protocol, packetId, address, size);
+        PacketCounter.countBytes(PacketCounter.Direction.OUT, protocol, packetId, context.pipeline().get("packet_handler") instanceof Connection c ? c : null, size);
+    }
+}
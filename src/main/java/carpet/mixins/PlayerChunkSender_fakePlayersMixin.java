@@ -0,0 +1,32 @@
+package carpet.mixins;
+
+import carpet.patches.NetHandlerPlayServerFake;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.network.PlayerChunkSender;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+@Mixin(PlayerChunkSender.class)
+public abstract class PlayerChunkSender_fakePlayersMixin
+{
+    @Shadow
+    private static void sendChunk(ServerGamePacketListenerImpl listener, ServerLevel level, LevelChunk chunk)
+    {
+        throw new AssertionError();
+    }
+
+    // chunks still count as sent, so batching and chunk tracking stay vanilla, but fake players would throw
+    // the serialized chunk and light data away anyways
+    @Redirect(method = "sendNextChunks", at = @At(value = "INVOKE", target = "Lnet/minecraft/server/network/PlayerChunkSender;sendChunk(Lnet/minecraft/server/network/ServerGamePacketListenerImpl;Lnet/minecraft/server/level/ServerLevel;Lnet/minecraft/world/level/chunk/LevelChunk;)V"))
+    private void skipChunkPacketsForFakePlayers(ServerGamePacketListenerImpl listener, ServerLevel level, LevelChunk chunk)
+    {
+        if (!(listener instanceof NetHandlerPlayServerFake))
+        {
+            sendChunk(listener, level, chunk);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package carpet.mixins;
+
+import carpet.helpers.ParallelWarp;
+import net.minecraft.world.scores.Score;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(Score.class)
+public class Score_parallelWarpMixin
+{
+    // changing a score reads it first, and tells the scoreboard, which sends it to players
+    @Inject(method = {"add", "setScore"}, at = @At("HEAD"))
+    private void lockScore(CallbackInfo ci)
+    {
+        ParallelWarp.lockShared();
+    }
+
+    @Inject(method = {"add", "setScore"}, at = @At("RETURN"))
+    private void unlockScore(CallbackInfo ci)
+    {
+        ParallelWarp.unlockShared();
+    }
+}
@@ -0,0 +1,39 @@
+package carpet.mixins;
+
+import carpet.helpers.ParallelWarp;
+import net.minecraft.world.scores.Score;
+import net.minecraft.world.scores.Scoreboard;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(Scoreboard.class)
+public class Scoreboard_parallelWarpMixin
+{
+    // kills, deaths and stats of all dimensions count into the one scoreboard
+    @Inject(method = "getOrCreatePlayerScore", at = @At("HEAD"))
+    private void lockScore(CallbackInfoReturnable<Score> cir)
+    {
+        ParallelWarp.lockShared();
+    }
+
+    @Inject(method = "getOrCreatePlayerScore", at = @At("RETURN"))
+    private void unlockScore(CallbackInfoReturnable<Score> cir)
+    {
+        ParallelWarp.unlockShared();
+    }
+
+    @Inject(method = "forAllObjectives", at = @At("HEAD"))
+    private void lockObjectives(CallbackInfo ci)
+    {
+        ParallelWarp.lockShared();
+    }
+
+    @Inject(method = "forAllObjectives", at = @At("RETURN"))
+    private void unlockObjectives(CallbackInfo ci)
+    {
+        ParallelWarp.unlockShared();
+    }
+}
@@ -0,0 +1,14 @@
+package carpet.mixins;
+
+import net.minecraft.server.level.ServerChunkCache;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ServerChunkCache.class)
+public interface ServerChunkCacheThreadAccessor
+{
+    @Accessor("mainThread")
+    @Mutable
+    void setMainThread(Thread thread);
+}
@@ -0,0 +1,32 @@
+package carpet.mixins;
+
+import carpet.helpers.ParallelWarp;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ChunkStatus;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(ServerChunkCache.class)
+public class ServerChunkCache_parallelWarpMixin
+{
+    @Shadow @Final ServerLevel level;
+
+    @Inject(method = "getChunk(IILnet/minecraft/world/level/chunk/ChunkStatus;Z)Lnet/minecraft/world/level/chunk/ChunkAccess;", at = @At("HEAD"))
+    private void checkAccess(int x, int z, ChunkStatus status, boolean create, CallbackInfoReturnable<ChunkAccess> cir)
+    {
+        ParallelWarp.checkAccess(level);
+    }
+
+    @Inject(method = "getChunkNow", at = @At("HEAD"))
+    private void checkAccessNow(int x, int z, CallbackInfoReturnable<LevelChunk> cir)
+    {
+        ParallelWarp.checkAccess(level);
+    }
+}
@@ -32,12 +32,12 @@ public abstract class ServerChunkCache_tickMixin
     @Shadow @Final
     public ChunkMap chunkMap;
 
-    CarpetProfiler.ProfilerToken currentSection;
+    long currentSection;
 
     @Inject(method = "tickChunks", at = @At("HEAD"))
     private void startSpawningSection(CallbackInfo ci)
     {
-        currentSection = CarpetProfiler.start_section(level, "Spawning", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
 
     @Inject(method = "tickChunks", at = @At(
@@ -47,9 +47,9 @@ public abstract class ServerChunkCache_tickMixin
     ))
     private void skipChunkTicking(CallbackInfo ci)
     {
-        if (currentSection != null)
+        if (currentSection != 0L)
         {
-            CarpetProfiler.end_current_section(currentSection);
+            CarpetProfiler.end_section(level, CarpetProfiler.LevelSection.SPAWNING, currentSection);
         }
     }
 
@@ -60,15 +60,15 @@ public abstract class ServerChunkCache_tickMixin
     ))
     private void resumeSpawningSection(CallbackInfo ci)
     {
-        currentSection = CarpetProfiler.start_section(level, "Spawning", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
 
     @Inject(method = "tickChunks", at = @At("RETURN"))
     private void stopSpawningSection(CallbackInfo ci)
     {
-        if (currentSection != null)
+        if (currentSection != 0L)
         {
-            CarpetProfiler.end_current_section(currentSection);
+            CarpetProfiler.end_section(level, CarpetProfiler.LevelSection.SPAWNING, currentSection);
         }
     }
 
@@ -0,0 +1,31 @@
+package carpet.mixins;
+
+import carpet.patches.EntityPlayerMPFake;
+import net.minecraft.server.level.ServerEntity;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerEntity.class)
+public class ServerEntity_fakePlayersMixin
+{
+    @Shadow
+    @Final
+    private Entity entity;
+
+    // fake players still start seeing the entity, but skip building its spawn, data and equipment packets
+    @Inject(method = "addPairing", at = @At("HEAD"), cancellable = true)
+    private void skipPairingPacketsForFakePlayers(ServerPlayer player, CallbackInfo ci)
+    {
+        if (player instanceof EntityPlayerMPFake)
+        {
+            entity.startSeenByPlayer(player);
+            ci.cancel();
+        }
+    }
+}
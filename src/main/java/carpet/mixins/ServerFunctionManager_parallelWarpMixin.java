@@ -0,0 +1,27 @@
+package carpet.mixins;
+
+import carpet.helpers.ParallelWarp;
+import net.minecraft.server.ServerFunctionManager;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(ServerFunctionManager.class)
+public class ServerFunctionManager_parallelWarpMixin
+{
+    private static final String EXECUTE = "execute(Lnet/minecraft/commands/CommandFunction;Lnet/minecraft/commands/CommandSourceStack;Lnet/minecraft/server/ServerFunctionManager$TraceCallbacks;)I";
+
+    // functions, like advancement rewards, share one execution queue
+    @Inject(method = EXECUTE, at = @At("HEAD"))
+    private void lockFunction(CallbackInfoReturnable<Integer> cir)
+    {
+        ParallelWarp.lockShared();
+    }
+
+    @Inject(method = EXECUTE, at = @At("RETURN"))
+    private void unlockFunction(CallbackInfoReturnable<Integer> cir)
+    {
+        ParallelWarp.unlockShared();
+    }
+}
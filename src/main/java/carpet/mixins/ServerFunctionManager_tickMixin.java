@@ -15,7 +15,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 public class ServerFunctionManager_tickMixin
 {
     @Shadow @Final MinecraftServer server;
-    CarpetProfiler.ProfilerToken currentSection;
+    long currentSection;
 
     @Inject(method = "tick", at = @At("HEAD"), cancellable = true)
     private void beforeDatapacks(CallbackInfo ci)
@@ -26,13 +26,13 @@ public class ServerFunctionManager_tickMixin
         }
         else
         {
-            currentSection = CarpetProfiler.start_section(null, "Datapacks", CarpetProfiler.TYPE.GENERAL);
+            currentSection = CarpetProfiler.start_section();
         }
     }
 
     @Inject(method = "tick", at = @At("RETURN"))
     private void afterDatapacks(CallbackInfo ci)
     {
-        CarpetProfiler.end_current_section(currentSection);
+        CarpetProfiler.end_section(CarpetProfiler.DATAPACKS, currentSection);
     }
 }
@@ -0,0 +1,38 @@
+package carpet.mixins;
+
+import carpet.helpers.ParallelWarp;
+import net.minecraft.server.level.ServerLevel;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(ServerLevel.class)
+public class ServerLevel_parallelWarpMixin
+{
+    // maps of all dimensions are kept in the data storage of the overworld
+    @Inject(method = {"getMapData", "getFreeMapId"}, at = @At("HEAD"))
+    private void lockMapData(CallbackInfoReturnable<?> cir)
+    {
+        ParallelWarp.lockShared();
+    }
+
+    @Inject(method = {"getMapData", "getFreeMapId"}, at = @At("RETURN"))
+    private void unlockMapData(CallbackInfoReturnable<?> cir)
+    {
+        ParallelWarp.unlockShared();
+    }
+
+    @Inject(method = "setMapData", at = @At("HEAD"))
+    private void lockSetMapData(CallbackInfo ci)
+    {
+        ParallelWarp.lockShared();
+    }
+
+    @Inject(method = "setMapData", at = @At("RETURN"))
+    private void unlockSetMapData(CallbackInfo ci)
+    {
+        ParallelWarp.unlockShared();
+    }
+}
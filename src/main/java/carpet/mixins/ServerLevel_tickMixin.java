@@ -42,7 +42,7 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
 
     @Shadow protected abstract void tickTime();
 
-    private CarpetProfiler.ProfilerToken currentSection;
+    private long currentSection;
 
     @Inject(method = "tick", at = @At(
             value = "CONSTANT",
@@ -50,7 +50,7 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
     ))
     private void startWeatherSection(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        currentSection = CarpetProfiler.start_section((Level)(Object)this, "Environment", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
     @Inject(method = "tick", at = @At(
             value = "CONSTANT",
@@ -58,10 +58,10 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
     ))
     private void stopWeatherStartTileTicks(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        if (currentSection != null)
+        if (currentSection != 0L)
         {
-            CarpetProfiler.end_current_section(currentSection);
-            currentSection = CarpetProfiler.start_section((Level) (Object) this, "Schedule Ticks", CarpetProfiler.TYPE.GENERAL);
+            CarpetProfiler.end_section(this, CarpetProfiler.LevelSection.ENVIRONMENT, currentSection);
+            currentSection = CarpetProfiler.start_section();
         }
     }
     @Inject(method = "tick", at = @At(
@@ -70,10 +70,10 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
     ))
     private void stopTileTicksStartRaid(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        if (currentSection != null)
+        if (currentSection != 0L)
         {
-            CarpetProfiler.end_current_section(currentSection);
-            currentSection = CarpetProfiler.start_section((Level) (Object) this, "Raid", CarpetProfiler.TYPE.GENERAL);
+            CarpetProfiler.end_section(this, CarpetProfiler.LevelSection.SCHEDULE_TICKS, currentSection);
+            currentSection = CarpetProfiler.start_section();
         }
     }
 
@@ -83,9 +83,9 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
     ))
     private void stopRaid(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        if (currentSection != null)
+        if (currentSection != 0L)
         {
-            CarpetProfiler.end_current_section(currentSection);
+            CarpetProfiler.end_section(this, CarpetProfiler.LevelSection.RAID, currentSection);
         }
     }
     @Inject(method = "tick", at = @At(
@@ -94,7 +94,7 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
     ))
     private void startBlockEvents(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        currentSection = CarpetProfiler.start_section((Level) (Object) this, "Block Events", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
 
     @Inject(method = "tick", at = @At(
@@ -103,10 +103,10 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
     ))
     private void stopBlockEventsStartEntitySection(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        if (currentSection != null)
+        if (currentSection != 0L)
         {
-            CarpetProfiler.end_current_section(currentSection);
-            currentSection = CarpetProfiler.start_section((Level) (Object) this, "Entities", CarpetProfiler.TYPE.GENERAL);
+            CarpetProfiler.end_section(this, CarpetProfiler.LevelSection.BLOCK_EVENTS, currentSection);
+            currentSection = CarpetProfiler.start_section();
         }
     }
 
@@ -117,8 +117,8 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
     ))
     private void endEntitySection(BooleanSupplier booleanSupplier_1, CallbackInfo ci)
     {
-        CarpetProfiler.end_current_section(currentSection);
-        currentSection = null;
+        CarpetProfiler.end_section(this, CarpetProfiler.LevelSection.ENTITIES, currentSection);
+        currentSection = 0L;
     }
 
     // Chunk
@@ -126,7 +126,7 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
     @Inject(method = "tickChunk", at = @At("HEAD"))
     private void startThunderSpawningSection(CallbackInfo ci) {
         // Counting it in spawning because it's spawning skeleton horses
-        currentSection = CarpetProfiler.start_section((Level) (Object) this, "Spawning", CarpetProfiler.TYPE.GENERAL);
+        currentSection = CarpetProfiler.start_section();
     }
 
     @Inject(method = "tickChunk", at = @At(
@@ -134,9 +134,9 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
             args = "stringValue=iceandsnow"
     ))
     private void endThunderSpawningAndStartIceSnowRandomTicks(CallbackInfo ci) {
-        if (currentSection != null) {
-            CarpetProfiler.end_current_section(currentSection);
-            currentSection = CarpetProfiler.start_section((Level) (Object) this, "Environment", CarpetProfiler.TYPE.GENERAL);
+        if (currentSection != 0L) {
+            CarpetProfiler.end_section(this, CarpetProfiler.LevelSection.SPAWNING, currentSection);
+            currentSection = CarpetProfiler.start_section();
         }
     }
 
@@ -145,17 +145,17 @@ public abstract class ServerLevel_tickMixin extends Level implements LevelInterf
             args = "stringValue=tickBlocks"
     ))
     private void endIceAndSnowAndStartRandomTicks(CallbackInfo ci) {
-        if (currentSection != null) {
-            CarpetProfiler.end_current_section(currentSection);
-            currentSection = CarpetProfiler.start_section((Level) (Object) this, "Random Ticks", CarpetProfiler.TYPE.GENERAL);
+        if (currentSection != 0L) {
+            CarpetProfiler.end_section(this, CarpetProfiler.LevelSection.ENVIRONMENT, currentSection);
+            currentSection = CarpetProfiler.start_section();
         }
     }
 
     @Inject(method = "tickChunk", at = @At("RETURN"))
     private void endRandomTicks(CallbackInfo ci) {
-        if (currentSection != null) {
-            CarpetProfiler.end_current_section(currentSection);
-            currentSection = null;
+        if (currentSection != 0L) {
+            CarpetProfiler.end_section(this, CarpetProfiler.LevelSection.RANDOM_TICKS, currentSection);
+            currentSection = 0L;
         }
     }
 
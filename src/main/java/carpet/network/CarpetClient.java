@@ -36,6 +36,8 @@ public class CarpetClient
 
     public static final String HI = "69";
     public static final String HELLO = "420";
+    public static final String SHAPE_CACHE = "scShapeCache";
+    public static final String SHAPE_CACHE_RESET = "scShapeCacheReset";
 
     public static ShapesRenderer shapes = null;
 
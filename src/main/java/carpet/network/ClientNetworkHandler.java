@@ -8,6 +8,7 @@ import carpet.api.settings.InvalidRuleValueException;
 import carpet.fakes.LevelInterface;
 import carpet.helpers.TickRateManager;
 import carpet.api.settings.SettingsManager;
+import carpet.script.utils.ShapeDispatcher;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -17,6 +18,7 @@ import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.nbt.ByteTag;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
 import net.minecraft.nbt.NumericTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
@@ -104,6 +106,18 @@ public class ClientNetworkHandler
                 CarpetClient.shapes.addShapes((ListTag) t);
             }
         });
+        dataHandlers.put(ShapeDispatcher.ExpiringShape.DELTA_PACKET, (p, t) -> {
+            if (CarpetClient.shapes != null)
+            {
+                CarpetClient.shapes.addShapeDeltas((ListTag) t);
+            }
+        });
+        dataHandlers.put(ShapeDispatcher.ExpiringShape.RENEW_PACKET, (p, t) -> {
+            if (CarpetClient.shapes != null)
+            {
+                CarpetClient.shapes.extendShapes(((LongArrayTag) t).getAsLongArray());
+            }
+        });
         dataHandlers.put("clientCommand", (p, t) -> CarpetClient.onClientCommand(t));
     }
 
@@ -130,6 +144,7 @@ public class ClientNetworkHandler
     {
         CompoundTag data = new CompoundTag();
         data.putString(CarpetClient.HELLO, CarpetSettings.carpetVersion);
+        data.putBoolean(CarpetClient.SHAPE_CACHE, true);
         CarpetClient.getPlayer().connection.send(new ServerboundCustomPayloadPacket(
                 new CarpetClient.CarpetPayload(data)
         ));
@@ -157,6 +172,23 @@ public class ClientNetworkHandler
         }
     }
 
+    /**
+     * Lets the server know shapes it sent are gone, and can't be renewed
+     */
+    public static void shapeCacheReset()
+    {
+        LocalPlayer player = CarpetClient.getPlayer();
+        if (player == null || player.connection == null)
+        {
+            return;
+        }
+        CompoundTag data = new CompoundTag();
+        data.putBoolean(CarpetClient.SHAPE_CACHE_RESET, true);
+        player.connection.send(new ServerboundCustomPayloadPacket(
+                new CarpetClient.CarpetPayload(data)
+        ));
+    }
+
     public static void clientCommand(String command)
     {
         CompoundTag tag = new CompoundTag();
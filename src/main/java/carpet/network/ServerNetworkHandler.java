@@ -7,6 +7,7 @@ import carpet.api.settings.RuleHelper;
 import carpet.fakes.MinecraftServerInterface;
 import carpet.fakes.ServerGamePacketListenerImplInterface;
 import carpet.helpers.ServerTickRateManager;
+import carpet.script.utils.ShapeDispatcher;
 import carpet.script.utils.SnoopyCommandSource;
 
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.function.BiConsumer;
 
 import net.minecraft.nbt.CompoundTag;
@@ -31,9 +33,13 @@ public class ServerNetworkHandler
 {
     private static final Map<ServerPlayer, String> remoteCarpetPlayers = new HashMap<>();
     private static final Set<ServerPlayer> validCarpetPlayers = new HashSet<>();
+    // by uuid, to survive respawns
+    private static final Set<UUID> shapeCachePlayers = new HashSet<>();
 
     private static final Map<String, BiConsumer<ServerPlayer, Tag>> dataHandlers = Map.of(
             CarpetClient.HELLO, (p, t) -> onHello(p, t.getAsString()),
+            CarpetClient.SHAPE_CACHE, (p, t) -> shapeCachePlayers.add(p.getUUID()),
+            CarpetClient.SHAPE_CACHE_RESET, (p, t) -> ShapeDispatcher.forgetClientShapes(p.getUUID()),
             "clientCommand", (p, t) -> handleClientCommand(p, (CompoundTag) t)
     );
 
@@ -48,6 +54,7 @@ public class ServerNetworkHandler
         else
         {
             validCarpetPlayers.add(playerEntity);
+            shapeCachePlayers.add(playerEntity.getUUID()); // same client
         }
     }
 
@@ -213,6 +220,8 @@ public class ServerNetworkHandler
     public static void onPlayerLoggedOut(ServerPlayer player)
     {
         validCarpetPlayers.remove(player);
+        shapeCachePlayers.remove(player.getUUID());
+        ShapeDispatcher.forgetPlayer(player.getUUID());
         if (!((ServerGamePacketListenerImplInterface) player.connection).getConnection().isMemoryConnection())
         {
             remoteCarpetPlayers.remove(player);
@@ -223,6 +232,8 @@ public class ServerNetworkHandler
     {
         remoteCarpetPlayers.clear();
         validCarpetPlayers.clear();
+        shapeCachePlayers.clear();
+        ShapeDispatcher.forgetPlayer(null);
     }
 
     public static boolean isValidCarpetPlayer(ServerPlayer player)
@@ -235,6 +246,14 @@ public class ServerNetworkHandler
 
     }
 
+    /**
+     * Whether player's client keeps track of shapes it received, so they can be renewed and sent as deltas
+     */
+    public static boolean hasShapeCache(ServerPlayer player)
+    {
+        return isValidCarpetPlayer(player) && shapeCachePlayers.contains(player.getUUID());
+    }
+
     public static String getPlayerStatus(ServerPlayer player)
     {
         if (remoteCarpetPlayers.containsKey(player))
@@ -18,7 +18,6 @@ import net.minecraft.server.level.ClientInformation;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.network.CommonListenerCookie;
-import net.minecraft.server.players.GameProfileCache;
 import net.minecraft.world.damagesource.DamageSource;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EquipmentSlot;
@@ -27,14 +26,12 @@ import net.minecraft.world.food.FoodData;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.GameType;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.block.entity.SkullBlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.Vec3;
 import carpet.fakes.ServerPlayerInterface;
 import carpet.utils.Messenger;
 
-import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 @SuppressWarnings("EntityConstructor")
 public class EntityPlayerMPFake extends ServerPlayer
@@ -44,51 +41,58 @@ public class EntityPlayerMPFake extends ServerPlayer
 
     public static void createFake(String username, MinecraftServer server, Vec3 pos, double yaw, double pitch, ResourceKey<Level> dimensionId, GameType gamemode, boolean flying, Runnable onError)
     {
-        //prolly half of that crap is not necessary, but it works
-        ServerLevel worldIn = server.getLevel(dimensionId);
-        GameProfileCache.setUsesAuthentication(false);
-        GameProfile gameprofile;
-        try {
-            gameprofile = server.getProfileCache().get(username).orElse(null); //findByName  .orElse(null)
-        }
-        finally {
-            GameProfileCache.setUsesAuthentication(server.isDedicatedServer() && server.usesAuthentication());
-        }
-        if (gameprofile == null)
-        {
-            if (!CarpetSettings.allowSpawningOfflinePlayers)
+        createFake(username, server, pos, yaw, pitch, dimensionId, gamemode, flying, onError, profile -> true);
+    }
+
+    /**
+     * @param canSpawn checks that need the profile of the player, run on the server thread once it is looked up
+     */
+    public static void createFake(String username, MinecraftServer server, Vec3 pos, double yaw, double pitch, ResourceKey<Level> dimensionId, GameType gamemode, boolean flying, Runnable onError, Predicate<GameProfile> canSpawn)
+    {
+        // profile and skin lookups may take a while, or time out, so the player is placed once they are done
+        FakePlayerProfiles.resolve(server, username).thenAccept(p -> {
+            GameProfile gameprofile = p.orElse(null);
+            if (gameprofile == null)
             {
-                onError.run();
-                return;
-            } else {
+                if (!CarpetSettings.allowSpawningOfflinePlayers)
+                {
+                    onError.run();
+                    return;
+                }
                 gameprofile = new GameProfile(UUIDUtil.createOfflinePlayerUUID(username), username);
             }
-        }
-        GameProfile finalGP = gameprofile;
-        fetchGameProfile(gameprofile.getName()).thenAccept(p -> {
-            GameProfile current = finalGP;
-            if (p.isPresent())
+            if (canSpawn.test(gameprofile))
             {
-                current = p.get();
+                createFake(gameprofile, server, pos, yaw, pitch, dimensionId, gamemode, flying);
             }
-            EntityPlayerMPFake instance = new EntityPlayerMPFake(server, worldIn, current, ClientInformation.createDefault(), false);
-            instance.fixStartingPosition = () -> instance.moveTo(pos.x, pos.y, pos.z, (float) yaw, (float) pitch);
-            server.getPlayerList().placeNewPlayer(new FakeClientConnection(PacketFlow.SERVERBOUND), instance, new CommonListenerCookie(current, 0, instance.clientInformation()));
-            instance.teleportTo(worldIn, pos.x, pos.y, pos.z, (float) yaw, (float) pitch);
-            instance.setHealth(20.0F);
-            instance.unsetRemoved();
-            instance.setMaxUpStep(0.6F);
-            instance.gameMode.changeGameModeForPlayer(gamemode);
-            server.getPlayerList().broadcastAll(new ClientboundRotateHeadPacket(instance, (byte) (instance.yHeadRot * 256 / 360)), dimensionId);//instance.dimension);
-            server.getPlayerList().broadcastAll(new ClientboundTeleportEntityPacket(instance), dimensionId);//instance.dimension);
-            //instance.world.getChunkManager(). updatePosition(instance);
-            instance.entityData.set(DATA_PLAYER_MODE_CUSTOMISATION, (byte) 0x7f); // show all model layers (incl. capes)
-            instance.getAbilities().flying = flying;
         });
     }
 
-    private static CompletableFuture<Optional<GameProfile>> fetchGameProfile(final String name) {
-        return SkullBlockEntity.fetchGameProfile(name);
+    /**
+     * Places a fake player with an already resolved profile, see {@link FakePlayerProfiles}
+     */
+    public static void createFake(GameProfile gameprofile, MinecraftServer server, Vec3 pos, double yaw, double pitch, ResourceKey<Level> dimensionId, GameType gamemode, boolean flying)
+    {
+        //prolly half of that crap is not necessary, but it works
+        ServerLevel worldIn = server.getLevel(dimensionId);
+        if (server.getPlayerList().getPlayer(gameprofile.getId()) != null)
+        {
+            // spawned by someone else in the meantime
+            return;
+        }
+        EntityPlayerMPFake instance = new EntityPlayerMPFake(server, worldIn, gameprofile, ClientInformation.createDefault(), false);
+        instance.fixStartingPosition = () -> instance.moveTo(pos.x, pos.y, pos.z, (float) yaw, (float) pitch);
+        server.getPlayerList().placeNewPlayer(new FakeClientConnection(PacketFlow.SERVERBOUND), instance, new CommonListenerCookie(gameprofile, 0, instance.clientInformation()));
+        instance.teleportTo(worldIn, pos.x, pos.y, pos.z, (float) yaw, (float) pitch);
+        instance.setHealth(20.0F);
+        instance.unsetRemoved();
+        instance.setMaxUpStep(0.6F);
+        instance.gameMode.changeGameModeForPlayer(gamemode);
+        server.getPlayerList().broadcastAll(new ClientboundRotateHeadPacket(instance, (byte) (instance.yHeadRot * 256 / 360)), dimensionId);//instance.dimension);
+        server.getPlayerList().broadcastAll(new ClientboundTeleportEntityPacket(instance), dimensionId);//instance.dimension);
+        //instance.world.getChunkManager(). updatePosition(instance);
+        instance.entityData.set(DATA_PLAYER_MODE_CUSTOMISATION, (byte) 0x7f); // show all model layers (incl. capes)
+        instance.getAbilities().flying = flying;
     }
 
     public static EntityPlayerMPFake createShadow(MinecraftServer server, ServerPlayer player)
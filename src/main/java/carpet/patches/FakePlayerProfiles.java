@@ -0,0 +1,202 @@
+package carpet.patches;
+
+import carpet.CarpetSettings;
+import com.mojang.authlib.GameProfile;
+import net.minecraft.Util;
+import net.minecraft.core.UUIDUtil;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.block.entity.SkullBlockEntity;
+import net.minecraft.world.level.storage.LevelResource;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Looks up game profiles, with skins, of fake players without blocking the server thread,
+ * and keeps them in the world folder for {@link CarpetSettings#fakePlayerProfileCacheTime} hours,
+ * so respawning bots doesn't need the auth servers. Concurrent spawns of the same player share one lookup.
+ * There is no batch spawn command: spawning many bots within one tick, from a function or a script,
+ * no longer stalls the server, as each lookup runs in the background and its bot is placed once it is done.
+ */
+public class FakePlayerProfiles
+{
+    /**
+     * Finds the profile of a player by name. Called on the server thread, so it should not block.
+     */
+    @FunctionalInterface
+    public interface Resolver
+    {
+        CompletableFuture<Optional<GameProfile>> resolve(MinecraftServer server, String name);
+    }
+
+    public static final Resolver ONLINE = (server, name) -> CompletableFuture
+            .supplyAsync(() -> server.getProfileCache().get(name), Util.backgroundExecutor())
+            .thenCompose(profile -> profile.isEmpty()
+                    ? CompletableFuture.completedFuture(profile)
+                    : SkullBlockEntity.fetchGameProfile(name).thenApply(withSkin -> withSkin.or(() -> profile)));
+
+    /**
+     * Stand-in for servers without access to the auth servers, or for tests
+     */
+    public static final Resolver OFFLINE = (server, name) ->
+            CompletableFuture.completedFuture(Optional.of(new GameProfile(UUIDUtil.createOfflinePlayerUUID(name), name)));
+
+    private record Entry(GameProfile profile, long expires)
+    {
+    }
+
+    private static Resolver resolver = ONLINE;
+    @Nullable
+    private static FakePlayerProfiles instance;
+
+    private final MinecraftServer server;
+    private final Path file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, CompletableFuture<Optional<GameProfile>>> pending = new HashMap<>();
+
+    private FakePlayerProfiles(MinecraftServer server)
+    {
+        this.server = server;
+        this.file = server.getWorldPath(LevelResource.ROOT).resolve("carpet_fake_profiles.dat");
+        load();
+    }
+
+    public static void setResolver(Resolver newResolver)
+    {
+        resolver = newResolver;
+    }
+
+    /**
+     * @return future completing on the server thread, with an empty result if the player doesn't exist
+     */
+    public static CompletableFuture<Optional<GameProfile>> resolve(MinecraftServer server, String name)
+    {
+        FakePlayerProfiles profiles;
+        synchronized (FakePlayerProfiles.class)
+        {
+            if (instance == null || instance.server != server)
+            {
+                instance = new FakePlayerProfiles(server);
+            }
+            profiles = instance;
+        }
+        return profiles.lookup(name).thenApplyAsync(profile -> profile, server);
+    }
+
+    private synchronized CompletableFuture<Optional<GameProfile>> lookup(String name)
+    {
+        String key = name.toLowerCase(Locale.ROOT);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expires() > System.currentTimeMillis())
+        {
+            return CompletableFuture.completedFuture(Optional.of(entry.profile()));
+        }
+        CompletableFuture<Optional<GameProfile>> lookup = pending.get(key);
+        if (lookup == null)
+        {
+            lookup = resolver.resolve(server, name).exceptionally(e -> {
+                CarpetSettings.LOG.warn("Failed to look up profile of player " + name, e);
+                return Optional.empty();
+            });
+            pending.put(key, lookup);
+            lookup.thenAccept(profile -> store(key, profile));
+        }
+        return lookup;
+    }
+
+    private synchronized void store(String key, Optional<GameProfile> profile)
+    {
+        pending.remove(key);
+        long ttl = CarpetSettings.fakePlayerProfileCacheTime * 3_600_000L;
+        if (ttl > 0 && profile.isPresent())
+        {
+            entries.put(key, new Entry(profile.get(), System.currentTimeMillis() + ttl));
+            Util.ioPool().execute(this::save);
+        }
+    }
+
+    private synchronized CompoundTag serialize()
+    {
+        CompoundTag data = new CompoundTag();
+        entries.forEach((key, entry) -> {
+            CompoundTag tag = NbtUtils.writeGameProfile(new CompoundTag(), entry.profile());
+            tag.putLong("Expires", entry.expires());
+            data.put(key, tag);
+        });
+        return data;
+    }
+
+    private void load()
+    {
+        if (!Files.exists(file))
+        {
+            return;
+        }
+        try
+        {
+            CompoundTag data;
+            try (InputStream in = Files.newInputStream(file))
+            {
+                data = NbtIo.readCompressed(in);
+            }
+            long now = System.currentTimeMillis();
+            for (String key : data.getAllKeys())
+            {
+                CompoundTag tag = data.getCompound(key);
+                GameProfile profile = NbtUtils.readGameProfile(tag);
+                if (profile != null && tag.contains("Expires", Tag.TAG_LONG) && tag.getLong("Expires") > now)
+                {
+                    entries.put(key, new Entry(profile, tag.getLong("Expires")));
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            CarpetSettings.LOG.warn("Failed to read fake player profiles", e);
+        }
+    }
+
+    private void save()
+    {
+        // latest state is taken under the file lock, so an older save can't overwrite a newer one
+        synchronized (file)
+        {
+            // written aside and moved over, so a crash halfway through doesn't lose the cache
+            Path temp = file.resolveSibling(file.getFileName() + "_tmp");
+            try
+            {
+                try (OutputStream out = Files.newOutputStream(temp))
+                {
+                    NbtIo.writeCompressed(serialize(), out);
+                }
+                try
+                {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+                catch (AtomicMoveNotSupportedException ignored)
+                {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            catch (IOException e)
+            {
+                CarpetSettings.LOG.warn("Failed to save fake player profiles", e);
+            }
+        }
+    }
+}
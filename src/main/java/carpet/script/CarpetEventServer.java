@@ -5,7 +5,9 @@ import carpet.script.exception.InternalExpressionException;
 import carpet.script.exception.InvalidCallbackException;
 import carpet.script.external.Carpet;
 import carpet.script.external.Vanilla;
+import carpet.script.utils.DueTickQueue;
 import carpet.script.utils.GlocalFlag;
+import carpet.script.utils.ScriptProfiler;
 import carpet.script.value.BlockValue;
 import carpet.script.value.BooleanValue;
 import carpet.script.value.EntityValue;
@@ -23,8 +25,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -74,7 +74,9 @@ import javax.annotation.Nullable;
 
 public class CarpetEventServer
 {
-    public final List<ScheduledCall> scheduledCalls = new LinkedList<>();
+    private static final int SCARPET_EVENTS = Carpet.profilerSection("Scarpet events");
+
+    public final DueTickQueue<ScheduledCall> scheduledCalls = new DueTickQueue<>(call -> call.host);
     public final CarpetScriptServer scriptServer;
     private static final List<Value> NOARGS = Collections.emptyList();
     public final Map<String, Event> customEvents = new HashMap<>();
@@ -120,9 +122,23 @@ public class CarpetEventServer
             {
                 return CallbackResult.FAIL; // already stopped
             }
-            return scriptServer.events.runEventCall(
-                    sender.withPermission(Vanilla.MinecraftServer_getRunPermissionLevel(sender.getServer())),
-                    host, optionalTarget, function, runtimeArgs);
+            // entity events fire from inside level ticks, which may run on separate threads with parallelWarp
+            boolean serialized = Carpet.lockScriptsForParallelTick();
+            ScriptProfiler.Token profilerToken = ScriptProfiler.start(ScriptProfiler.Kind.APP, host, null);
+            try
+            {
+                return scriptServer.events.runEventCall(
+                        sender.withPermission(Vanilla.MinecraftServer_getRunPermissionLevel(sender.getServer())),
+                        host, optionalTarget, function, runtimeArgs);
+            }
+            finally
+            {
+                ScriptProfiler.end(profilerToken);
+                if (serialized)
+                {
+                    Carpet.unlockScriptsForParallelTick();
+                }
+            }
         }
 
         /**
@@ -165,6 +181,9 @@ public class CarpetEventServer
     {
 
         private final CarpetContext ctx;
+        /**
+         * tick of the {@link CarpetEventServer#scheduledCalls} clock the call will run on
+         */
         public long dueTime;
 
         public ScheduledCall(CarpetContext context, FunctionValue function, List<Value> args, long dueTime)
@@ -180,7 +199,20 @@ public class CarpetEventServer
          */
         public void execute()
         {
-            scriptServer.events.runScheduledCall(ctx.origin(), ctx.source(), host, (CarpetScriptHost) ctx.host, function, parametrizedArgs);
+            boolean serialized = Carpet.lockScriptsForParallelTick();
+            ScriptProfiler.Token profilerToken = ScriptProfiler.start(ScriptProfiler.Kind.APP, host, null);
+            try
+            {
+                scriptServer.events.runScheduledCall(ctx.origin(), ctx.source(), host, (CarpetScriptHost) ctx.host, function, parametrizedArgs);
+            }
+            finally
+            {
+                ScriptProfiler.end(profilerToken);
+                if (serialized)
+                {
+                    Carpet.unlockScriptsForParallelTick();
+                }
+            }
         }
     }
 
@@ -194,9 +226,19 @@ public class CarpetEventServer
         public final int reqArgs;
         final boolean isSystem;
         final boolean perPlayerDistribution;
+        private final String name;
 
         public CallbackList(int reqArgs, boolean isSystem, boolean isGlobalOnly)
         {
+            this("unnamed", reqArgs, isSystem, isGlobalOnly);
+        }
+
+        /**
+         * @param name name of the event, to profile it by
+         */
+        public CallbackList(String name, int reqArgs, boolean isSystem, boolean isGlobalOnly)
+        {
+            this.name = name;
             this.callList = new ArrayList<>();
             this.removedCalls = new ArrayList<>();
             this.inCall = false;
@@ -256,50 +298,65 @@ public class CarpetEventServer
             {
                 return false;
             }
-            Boolean isCancelled = scriptServer.events.handleEvents.runIfEnabled(() -> {
-                Runnable profilerToken = Carpet.startProfilerSection("Scarpet events");
-                List<Value> argv = argumentSupplier.get(); // empty for onTickDone
-                String nameCheck = perPlayerDistribution ? source.getTextName() : null;
-                assert argv.size() == reqArgs;
-                boolean cancelled = false;
-                try
-                {
-                    // we are ok with list growing in the meantime
-                    // which might happen during inCall or inSignal
-                    inCall = true;
-                    for (int i = 0; i < callList.size(); i++)
+            Boolean isCancelled;
+            // dimensions may tick on separate threads with parallelWarp, apps expect to run one at a time
+            boolean serialized = Carpet.lockScriptsForParallelTick();
+            try
+            {
+                isCancelled = scriptServer.events.handleEvents.runIfEnabled(() -> {
+                    long profilerToken = Carpet.startProfilerSection();
+                    ScriptProfiler.Token eventToken = ScriptProfiler.start(ScriptProfiler.Kind.EVENT, null, name);
+                    List<Value> argv = argumentSupplier.get(); // empty for onTickDone
+                    String nameCheck = perPlayerDistribution ? source.getTextName() : null;
+                    assert argv.size() == reqArgs;
+                    boolean cancelled = false;
+                    try
                     {
-                        Callback call = callList.get(i);
-                        // supressing calls where target player hosts simply don't match
-                        // handling global hosts with player targets is left to when the host is resolved (few calls deeper).
-                        if (nameCheck != null && call.optionalTarget != null && !nameCheck.equals(call.optionalTarget))
+                        // we are ok with list growing in the meantime
+                        // which might happen during inCall or inSignal
+                        inCall = true;
+                        for (int i = 0; i < callList.size(); i++)
                         {
-                            continue;
-                        }
-                        CallbackResult result = call.execute(source, argv);
-                        if (result == CallbackResult.CANCEL)
-                        {
-                            cancelled = true;
-                            break;
-                        }
-                        if (result == CallbackResult.FAIL)
-                        {
-                            removedCalls.add(call);
+                            Callback call = callList.get(i);
+                            // supressing calls where target player hosts simply don't match
+                            // handling global hosts with player targets is left to when the host is resolved (few calls deeper).
+                            if (nameCheck != null && call.optionalTarget != null && !nameCheck.equals(call.optionalTarget))
+                            {
+                                continue;
+                            }
+                            CallbackResult result = call.execute(source, argv);
+                            if (result == CallbackResult.CANCEL)
+                            {
+                                cancelled = true;
+                                break;
+                            }
+                            if (result == CallbackResult.FAIL)
+                            {
+                                removedCalls.add(call);
+                            }
                         }
                     }
-                }
-                finally
-                {
-                    inCall = false;
-                }
-                for (Callback call : removedCalls)
+                    finally
+                    {
+                        inCall = false;
+                        ScriptProfiler.end(eventToken);
+                    }
+                    for (Callback call : removedCalls)
+                    {
+                        callList.remove(call);
+                    }
+                    removedCalls.clear();
+                    Carpet.endProfilerSection(SCARPET_EVENTS, profilerToken);
+                    return cancelled;
+                });
+            }
+            finally
+            {
+                if (serialized)
                 {
-                    callList.remove(call);
+                    Carpet.unlockScriptsForParallelTick();
                 }
-                removedCalls.clear();
-                profilerToken.run();
-                return cancelled;
-            });
+            }
             return isCancelled != null && isCancelled;
         }
 
@@ -310,6 +367,7 @@ public class CarpetEventServer
                 return 0;
             }
             int successes = 0;
+            ScriptProfiler.Token eventToken = ScriptProfiler.start(ScriptProfiler.Kind.EVENT, null, name);
             try
             {
                 inSignal = true;
@@ -325,6 +383,7 @@ public class CarpetEventServer
             finally
             {
                 inSignal = false;
+                ScriptProfiler.end(eventToken);
             }
             return successes;
         }
@@ -1145,7 +1204,7 @@ public class CarpetEventServer
         public Event(String name, int reqArgs, boolean isGlobalOnly, boolean isPublic)
         {
             this.name = name;
-            this.handler = new CallbackList(reqArgs, true, isGlobalOnly);
+            this.handler = new CallbackList(name, reqArgs, true, isGlobalOnly);
             this.isPublic = isPublic;
             byName.put(name, this);
         }
@@ -1201,7 +1260,7 @@ public class CarpetEventServer
         private Event(String name, CarpetScriptServer server)
         {
             this.name = name;
-            this.handler = new CallbackList(1, false, false);
+            this.handler = new CallbackList(name, 1, false, false);
             this.isPublic = true;
             server.events.customEvents.put(name, this);
         }
@@ -1373,28 +1432,18 @@ public class CarpetEventServer
         {
             return;
         }
-        Iterator<ScheduledCall> eventIterator = scheduledCalls.iterator();
-        List<ScheduledCall> currentCalls = new ArrayList<>();
-        while (eventIterator.hasNext())
-        {
-            ScheduledCall call = eventIterator.next();
-            call.dueTime--;
-            if (call.dueTime <= 0)
-            {
-                currentCalls.add(call);
-                eventIterator.remove();
-            }
-        }
+        List<ScheduledCall> currentCalls = scheduledCalls.advance();
         for (ScheduledCall call : currentCalls)
         {
             call.execute();
         }
-
+        Carpet.recordProfilerCount("Scarpet schedule", currentCalls.size(), scheduledCalls.size());
     }
 
     public void scheduleCall(CarpetContext context, FunctionValue function, List<Value> args, long due)
     {
-        scheduledCalls.add(new ScheduledCall(context, function, args, due));
+        ScheduledCall call = new ScheduledCall(context, function, args, due);
+        call.dueTime = scheduledCalls.add(due, call);
     }
 
     public void runScheduledCall(BlockPos origin, CommandSourceStack source, String hostname, CarpetScriptHost host, FunctionValue udf, List<Value> argv)
@@ -1548,6 +1597,6 @@ public class CarpetEventServer
             }
         }
         // remove scheduled calls
-        scheduledCalls.removeIf(sc -> sc.host != null && sc.host.equals(host.getName()));
+        scheduledCalls.removeGroup(host.getName());
     }
 }
\ No newline at end of file
@@ -22,8 +22,9 @@ import net.minecraft.world.entity.Entity;
 
 public class CarpetExpression
 {
-    private final CommandSourceStack source;
-    private final BlockPos origin;
+    // rebound for each run of a cached expression, see scriptRunCommand
+    private CommandSourceStack source;
+    private BlockPos origin;
     private final Expression expr;
 
     // these are for extensions
@@ -42,22 +43,42 @@ public class CarpetExpression
         return origin;
     }
 
+    private static Expression.Builtins builtins;
+    private static int builtinsAnnotatedFunctions = -1;
+
+    /**
+     * Language and Minecraft built-ins are the same for all expressions, so they are registered once,
+     * and again only when new annotated functions are parsed.
+     */
+    private static synchronized Expression.Builtins getBuiltins()
+    {
+        int annotatedFunctions = AnnotationParser.functionCount();
+        if (builtins == null || builtinsAnnotatedFunctions != annotatedFunctions)
+        {
+            builtins = Expression.Builtins.build(Expression.LANGUAGE, expr -> {
+                WorldAccess.apply(expr);
+                Entities.apply(expr);
+                Inventories.apply(expr);
+                BlockIterators.apply(expr);
+                Auxiliary.apply(expr);
+                Threading.apply(expr);
+                Scoreboards.apply(expr);
+                Monitoring.apply(expr);
+                AnnotationParser.apply(expr);
+            });
+            builtinsAnnotatedFunctions = annotatedFunctions;
+        }
+        return builtins;
+    }
+
     public CarpetExpression(Module module, String expression, CommandSourceStack source, BlockPos origin)
     {
         this.origin = origin;
         this.source = source;
-        this.expr = new Expression(expression);
+        this.expr = new Expression(expression, getBuiltins());
         this.expr.asAModule(module);
 
-        WorldAccess.apply(this.expr);
-        Entities.apply(this.expr);
-        Inventories.apply(this.expr);
-        BlockIterators.apply(this.expr);
-        Auxiliary.apply(this.expr);
-        Threading.apply(this.expr);
-        Scoreboards.apply(this.expr);
-        Monitoring.apply(this.expr);
-        AnnotationParser.apply(this.expr);
+        // extensions get this expression, with its source and origin, so their functions are registered on it alone
         Carpet.handleExtensionsAPI(this);
     }
 
@@ -103,12 +124,27 @@ public class CarpetExpression
     }
 
     public Value scriptRunCommand(ScriptHost host, BlockPos pos)
+    {
+        return scriptRunCommand(host, source, origin, pos);
+    }
+
+    /**
+     * Runs the expression on behalf of a different source than it was created with,
+     * so compiled expressions can be reused between commands. {@link #getSource()} and {@link #getOrigin()}
+     * return the ones of the current run while it lasts, for functions extensions registered on the expression.
+     */
+    public Value scriptRunCommand(ScriptHost host, CommandSourceStack source, BlockPos origin, BlockPos pos)
     {
         CarpetScriptServer scriptServer = (CarpetScriptServer) host.scriptServer();
         if (scriptServer.stopAll)
         {
             throw new CarpetExpressionException("SCRIPTING PAUSED (unpause with /script resume)", null);
         }
+        // the code may run itself again through a command, so the outer run gets its source back after
+        CommandSourceStack outerSource = this.source;
+        BlockPos outerOrigin = this.origin;
+        this.source = source;
+        this.origin = origin;
         try
         {
             Context context = new CarpetContext(host, source, origin).
@@ -140,5 +176,10 @@ public class CarpetExpression
         {
             throw new CarpetExpressionException("Your thoughts are too deep", null);
         }
+        finally
+        {
+            this.source = outerSource;
+            this.origin = outerOrigin;
+        }
     }
 }
@@ -14,6 +14,7 @@ import carpet.script.exception.LoadException;
 import carpet.script.external.Carpet;
 import carpet.script.external.Vanilla;
 import carpet.script.utils.AppStoreManager;
+import carpet.script.utils.TaskPool;
 import carpet.script.value.EntityValue;
 import carpet.script.value.FunctionValue;
 import carpet.script.value.ListValue;
@@ -62,6 +63,8 @@ import static net.minecraft.commands.Commands.literal;
 
 public class CarpetScriptHost extends ScriptHost
 {
+    private static final int SCARPET_COMMAND = Carpet.profilerSection("Scarpet command");
+
     public CommandSourceStack responsibleSource;
 
     private Tag globalState;
@@ -136,7 +139,7 @@ public class CarpetScriptHost extends ScriptHost
 
     private static int execute(CommandContext<CommandSourceStack> ctx, String hostName, FunctionArgument funcSpec, List<String> paramNames) throws CommandSyntaxException
     {
-        Runnable token = Carpet.startProfilerSection("Scarpet command");
+        long token = Carpet.startProfilerSection();
         CarpetScriptServer scriptServer = Vanilla.MinecraftServer_getScriptServer(ctx.getSource().getServer());
         CarpetScriptHost cHost = scriptServer.modules.get(hostName).retrieveOwnForExecution(ctx.getSource());
         List<String> argNames = funcSpec.function.getArguments();
@@ -152,7 +155,7 @@ public class CarpetScriptHost extends ScriptHost
         args.addAll(funcSpec.args);
         Value response = cHost.handleCommand(ctx.getSource(), funcSpec.function, args);
         int intres = (int) response.readInteger();
-        token.run();
+        Carpet.endProfilerSection(SCARPET_COMMAND, token);
         return intres;
     }
 
@@ -232,13 +235,13 @@ public class CarpetScriptHost extends ScriptHost
         return s -> {
             try
             {
-                Runnable token = Carpet.startProfilerSection("Scarpet command");
+                long token = Carpet.startProfilerSection();
                 CarpetScriptHost cHost = scriptServer().modules.get(hostName).retrieveOwnForExecution(s);
                 Value response = cHost.handleCommand(s, fun, Collections.singletonList(
                         (s.getEntity() instanceof ServerPlayer) ? new EntityValue(s.getEntity()) : Value.NULL)
                 );
                 boolean res = response.getBoolean();
-                token.run();
+                Carpet.endProfilerSection(SCARPET_COMMAND, token);
                 return res;
             }
             catch (CommandSyntaxException e)
@@ -368,6 +371,22 @@ public class CarpetScriptHost extends ScriptHost
         return true;
     }
 
+    @Override
+    protected TaskPool.Config getTaskPoolConfig(Value pool)
+    {
+        Value pools = appConfig.get(StringValue.of("task_pools"));
+        Value poolConfig = null;
+        if (pools != null)
+        {
+            if (!(pools instanceof final MapValue map))
+            {
+                throw new InternalExpressionException("App task pools not defined as a map");
+            }
+            poolConfig = map.getMap().get(pool.isNull() ? StringValue.of("default") : pool);
+        }
+        return TaskPool.Config.fromValue(poolConfig, Vanilla.ScriptServer_taskThreadLimit(scriptServer().server));
+    }
+
     static class ListComparator<T extends Comparable<T>> implements Comparator<Pair<List<T>, ?>>
     {
         @Override
@@ -692,9 +711,9 @@ public class CarpetScriptHost extends ScriptHost
     {
         try
         {
-            Runnable token = Carpet.startProfilerSection("Scarpet command");
+            long token = Carpet.startProfilerSection();
             Value res = callLegacy(source, call, coords, arg);
-            token.run();
+            Carpet.endProfilerSection(SCARPET_COMMAND, token);
             return res;
         }
         catch (CarpetExpressionException exc)
@@ -931,6 +950,7 @@ public class CarpetScriptHost extends ScriptHost
     public void onClose()
     {
         super.onClose();
+        scriptServer().expressionCache.invalidate(this);
         FunctionValue closing = getFunction("__on_close");
         if (closing != null && (parent != null || !isPerUser()))
         // either global instance of a global task, or
@@ -1015,6 +1035,11 @@ public class CarpetScriptHost extends ScriptHost
         return (getName() != null || fdesc.isShared) && fdesc.appendToTextFile(main, data); // if belongs to an app, cannot be default host.
     }
 
+    public Path getStreamingPath(FileArgument fdesc)
+    {
+        return getName() == null && !fdesc.isShared ? null : fdesc.getStreamingPath(main);
+    }
+
     public List<String> readTextResource(FileArgument fdesc)
     {
         return getName() == null && !fdesc.isShared ? null : fdesc.listFile(main);
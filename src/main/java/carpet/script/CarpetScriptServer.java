@@ -18,7 +18,12 @@ import carpet.script.language.Functions;
 import carpet.script.language.Loops;
 import carpet.script.language.Sys;
 import carpet.script.language.Threading;
+import carpet.script.utils.AppDataWriter;
 import carpet.script.utils.AppStoreManager;
+import carpet.script.utils.BoundedCache;
+import carpet.script.utils.ExpressionCache;
+import carpet.script.utils.ScriptProfiler;
+import carpet.script.utils.ShapeDispatcher;
 import carpet.script.value.FunctionValue;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.tree.CommandNode;
@@ -55,6 +60,11 @@ import static carpet.script.CarpetEventServer.Event.PLAYER_DISCONNECTS;
 
 public class CarpetScriptServer extends ScriptServer
 {
+    private static final int SCARPET_LOAD = Carpet.profilerSection("Scarpet load");
+    private static final int SCARPET_SCHEDULE = Carpet.profilerSection("Scarpet schedule");
+    private static final int SCARPET_SHAPES = Carpet.profilerSection("Scarpet shapes");
+    private static final int SCARPET_APP_DATA = Carpet.profilerSection("Scarpet app data");
+
     //make static for now, but will change that later:
     public static final Logger LOG = LoggerFactory.getLogger("Scarpet");
     public final MinecraftServer server;
@@ -66,6 +76,7 @@ public class CarpetScriptServer extends ScriptServer
     public int tickDepth;
     private Set<String> holyMoly;
     public CarpetEventServer events;
+    public ExpressionCache expressionCache;
 
     private static final List<Module> bundledModuleData = new ArrayList<>();
     private static final List<Module> ruleModuleData = new ArrayList<>();
@@ -116,6 +127,9 @@ public class CarpetScriptServer extends ScriptServer
     private void init()
     {
         events = new CarpetEventServer(this);
+        expressionCache = new ExpressionCache(256);
+        BoundedCache.clearAll();
+        ScriptProfiler.clear();
         modules = new HashMap<>();
         unloadableModules = new HashSet<>();
         tickStart = 0L;
@@ -235,7 +249,7 @@ public class CarpetScriptServer extends ScriptServer
     public boolean addScriptHost(CommandSourceStack source, String name, @Nullable Predicate<CommandSourceStack> commandValidator,
                                  boolean perPlayer, boolean autoload, boolean isRuleApp, AppStoreManager.StoreNode installer)
     {
-        Runnable token = Carpet.startProfilerSection("Scarpet load");
+        long token = Carpet.startProfilerSection();
         if (commandValidator == null)
         {
             commandValidator = p -> true;
@@ -327,7 +341,7 @@ public class CarpetScriptServer extends ScriptServer
                 newHost.callNow(onStart, Collections.emptyList());
             }
         }
-        token.run();
+        Carpet.endProfilerSection(SCARPET_LOAD, token);
         long end = System.nanoTime();
         LOG.info("App " + name + " loaded in " + (end - start) / 1000000 + " ms");
         return true;
@@ -399,19 +413,21 @@ public class CarpetScriptServer extends ScriptServer
 
     public void tick()
     {
-        Runnable token;
-        token = Carpet.startProfilerSection("Scarpet schedule");
+        long token = Carpet.startProfilerSection();
         events.handleEvents.getWhileDisabled(() -> {
             events.tick();
             return null;
         });
-        token.run();
-        token = Carpet.startProfilerSection("Scarpet app data");
+        Carpet.endProfilerSection(SCARPET_SCHEDULE, token);
+        token = Carpet.startProfilerSection();
+        ShapeDispatcher.sendDeferredShapes(server);
+        Carpet.endProfilerSection(SCARPET_SHAPES, token);
+        token = Carpet.startProfilerSection();
         for (CarpetScriptHost host : modules.values())
         {
             host.tick();
         }
-        token.run();
+        Carpet.endProfilerSection(SCARPET_APP_DATA, token);
     }
 
     public void onClose()
@@ -422,6 +438,8 @@ public class CarpetScriptServer extends ScriptServer
             host.onClose();
             events.removeAllHostEvents(host);
         }
+        // app data is saved in the background, server shouldn't stop before it's on disk
+        AppDataWriter.flush();
         stopAll = true;
     }
 
@@ -4,8 +4,7 @@ import carpet.script.exception.InternalExpressionException;
 import carpet.script.value.ThreadValue;
 import carpet.script.value.Value;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.annotation.Nullable;
 import java.util.Set;
 
 public class Context
@@ -27,7 +26,25 @@ public class Context
     public static final Type LVALUE = Type.LVALUE;
     public static final Type MAPDEF = Type.MAPDEF;
 
-    public Map<String, LazyValue> variables = new HashMap<>();
+    /**
+     * Return, break or continue, when they are statements of a function or loop body, are signalled via the context
+     * instead of thrown, so enclosing statements are skipped and the function or loop takes the signal afterwards
+     */
+    public enum Signal
+    {
+        NONE, RETURN, BREAK, CONTINUE
+    }
+
+    /**
+     * Variables every new context starts with, including those set by {@link CarpetContext}, see {@link #initialize()}
+     */
+    public static final String[] SPECIAL_VARIABLES = {"_", "_i", "_a", "_x", "_y", "_z"};
+
+    public Scope variables = new Scope();
+
+    private Signal signal = Signal.NONE;
+    @Nullable
+    private Value signalValue = null;
 
     public final ScriptHost host;
 
@@ -48,6 +65,19 @@ public class Context
         variables.put(name, lv);
     }
 
+    /**
+     * Access to a variable resolved by the compiler, falls back to the name if the scope holds variables of another table
+     */
+    public LazyValue getVariable(SymbolTable symbols, int slot, String name)
+    {
+        return variables.get(symbols, slot, name);
+    }
+
+    public void setVariable(SymbolTable symbols, int slot, String name, LazyValue lv)
+    {
+        variables.put(symbols, slot, name, lv);
+    }
+
     public void delVariable(String variable)
     {
         variables.remove(variable);
@@ -55,7 +85,37 @@ public class Context
 
     public void removeVariablesMatching(String varname)
     {
-        variables.entrySet().removeIf(e -> e.getKey().startsWith(varname));
+        variables.removeWithPrefix(varname);
+    }
+
+    public void signal(Signal signal, @Nullable Value value)
+    {
+        this.signal = signal;
+        this.signalValue = value;
+    }
+
+    public boolean isSignalled()
+    {
+        return signal != Signal.NONE;
+    }
+
+    /**
+     * @return pending signal, which is then cleared, its value stays available via {@link #signalValue()}
+     */
+    public Signal takeSignal()
+    {
+        Signal taken = signal;
+        signal = Signal.NONE;
+        return taken;
+    }
+
+    /**
+     * @return value passed with the last signal, null if none was given
+     */
+    @Nullable
+    public Value signalValue()
+    {
+        return signalValue;
     }
 
     public Context with(String variable, LazyValue lv)
@@ -77,6 +137,18 @@ public class Context
         return ctx;
     }
 
+    /**
+     * New context for a call of a function, with variables laid out for the code of the function
+     */
+    public Context recreate(SymbolTable symbols)
+    {
+        Context ctx = duplicate();
+        ctx.threadContext = threadContext;
+        ctx.variables.bind(symbols);
+        ctx.initialize();
+        return ctx;
+    }
+
     public void setThreadContext(ThreadValue callingThread)
     {
         this.threadContext = callingThread;
@@ -151,6 +223,19 @@ public class Context
             badProgrammer();
         }
 
+        @Override
+        public LazyValue getVariable(SymbolTable symbols, int slot, String name)
+        {
+            badProgrammer();
+            return null;
+        }
+
+        @Override
+        public void setVariable(SymbolTable symbols, int slot, String name, LazyValue lv)
+        {
+            badProgrammer();
+        }
+
         @Override
         public void delVariable(String variable)
         {
@@ -184,6 +269,13 @@ public class Context
             return null;
         }
 
+        @Override
+        public Context recreate(SymbolTable symbols)
+        {
+            badProgrammer();
+            return null;
+        }
+
         @Override
         protected void initialize()
         {
@@ -37,6 +37,7 @@ import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import javax.annotation.Nullable;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -44,6 +45,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.BiFunction;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.DoubleToLongFunction;
@@ -91,29 +93,102 @@ public class Expression
      */
     private LazyValue ast = null;
 
+    /**
+     * Slots of local variables referenced in the code
+     */
+    private final SymbolTable symbols = new SymbolTable(Context.SPECIAL_VARIABLES);
+
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * Operators and built-in functions of an expression. Built-ins don't depend on the expression they are
+     * registered with, so they are registered once and the same, read-only maps are shared by all expressions.
+     */
+    public record Builtins(Map<String, ILazyOperator> operators, Map<String, ILazyFunction> functions, Map<String, String> functionalEquivalence)
+    {
+        /**
+         * @param base built-ins to extend, or null to start from scratch
+         * @param installer registers additional operators and functions on the provided builder expression
+         */
+        public static Builtins build(@Nullable Builtins base, Consumer<Expression> installer)
+        {
+            Expression builder = new Expression("", base);
+            installer.accept(builder);
+            builder.ownBuiltins();
+            return new Builtins(builder.operators, builder.functions, builder.functionalEquivalence);
+        }
+    }
+
+    /**
+     * Core language, without any Minecraft specific functions
+     */
+    public static final Builtins LANGUAGE = Builtins.build(null, expr -> {
+        Operators.apply(expr);
+        ControlFlow.apply(expr);
+        Functions.apply(expr);
+        Arithmetic.apply(expr);
+        Sys.apply(expr);
+        Threading.apply(expr);
+        Loops.apply(expr);
+        DataStructures.apply(expr);
+    });
+
     /**
      * script specific operatos and built-in functions
+     * point to shared built-ins until something gets registered on this expression only
      */
-    private final Map<String, ILazyOperator> operators = new Object2ObjectOpenHashMap<>();
+    private Map<String, ILazyOperator> operators;
 
     public boolean isAnOperator(String opname)
     {
         return operators.containsKey(opname) || operators.containsKey(opname + "u");
     }
 
-    private final Map<String, ILazyFunction> functions = new Object2ObjectOpenHashMap<>();
+    private Map<String, ILazyFunction> functions;
 
     public Set<String> getFunctionNames()
     {
-        return functions.keySet();
+        return Collections.unmodifiableSet(functions.keySet());
     }
 
-    private final Map<String, String> functionalEquivalence = new Object2ObjectOpenHashMap<>();
+    private Map<String, String> functionalEquivalence;
+
+    private boolean sharedBuiltins;
+
+    /**
+     * Makes a private copy of shared built-ins before they get modified
+     */
+    private void ownBuiltins()
+    {
+        if (sharedBuiltins)
+        {
+            operators = new Object2ObjectOpenHashMap<>(operators);
+            functions = new Object2ObjectOpenHashMap<>(functions);
+            functionalEquivalence = new Object2ObjectOpenHashMap<>(functionalEquivalence);
+            sharedBuiltins = false;
+        }
+    }
+
+    private Map<String, ILazyOperator> ownOperators()
+    {
+        ownBuiltins();
+        return operators;
+    }
+
+    private Map<String, ILazyFunction> ownFunctions()
+    {
+        ownBuiltins();
+        return functions;
+    }
 
     public void addFunctionalEquivalence(String operator, String function)
     {
         assert operators.containsKey(operator);
         assert functions.containsKey(function);
+        ownBuiltins();
         functionalEquivalence.put(operator, function);
     }
 
@@ -192,7 +267,7 @@ public class Expression
     public void addLazyUnaryOperator(String surface, int precedence, boolean leftAssoc, boolean pure, Function<Context.Type, Context.Type> staticTyper,
                                      TriFunction<Context, Context.Type, LazyValue, LazyValue> lazyfun)
     {
-        operators.put(surface + "u", new AbstractLazyOperator(precedence, leftAssoc)
+        ownOperators().put(surface + "u", new AbstractLazyOperator(precedence, leftAssoc)
         {
             @Override
             public boolean pure()
@@ -231,7 +306,39 @@ public class Expression
     public void addLazyBinaryOperatorWithDelegation(String surface, int precedence, boolean leftAssoc, boolean pure,
                                                     SexFunction<Context, Context.Type, Expression, Tokenizer.Token, LazyValue, LazyValue, LazyValue> lazyfun)
     {
-        operators.put(surface, new AbstractLazyOperator(precedence, leftAssoc)
+        ownOperators().put(surface, new AbstractLazyOperator(precedence, leftAssoc)
+        {
+            @Override
+            public boolean pure()
+            {
+                return pure;
+            }
+
+            @Override
+            public boolean transitive()
+            {
+                return false;
+            }
+
+            @Override
+            public LazyValue lazyEval(Context c, Context.Type type, Expression e, Tokenizer.Token t, LazyValue v1, LazyValue v2)
+            {
+                try
+                {
+                    return lazyfun.apply(c, type, e, t, v1, v2);
+                }
+                catch (RuntimeException exc)
+                {
+                    throw handleCodeException(c, exc, e, t);
+                }
+            }
+        });
+    }
+
+    public void addLazyBinaryOperatorWithDelegation(String surface, int precedence, boolean leftAssoc, boolean pure, Function<Context.Type, Context.Type> typer,
+                                                    SexFunction<Context, Context.Type, Expression, Tokenizer.Token, LazyValue, LazyValue, LazyValue> lazyfun)
+    {
+        ownOperators().put(surface, new AbstractLazyOperator(precedence, leftAssoc)
         {
             @Override
             public boolean pure()
@@ -245,9 +352,16 @@ public class Expression
                 return false;
             }
 
+            @Override
+            public Context.Type staticType(Context.Type outerType)
+            {
+                return typer.apply(outerType);
+            }
+
             @Override
             public LazyValue lazyEval(Context c, Context.Type type, Expression e, Tokenizer.Token t, LazyValue v1, LazyValue v2)
             {
+                ILazyFunction.checkInterrupts();
                 try
                 {
                     return lazyfun.apply(c, type, e, t, v1, v2);
@@ -262,13 +376,13 @@ public class Expression
 
     public void addCustomFunction(String name, ILazyFunction fun)
     {
-        functions.put(name, fun);
+        ownFunctions().put(name, fun);
     }
 
     public void addLazyFunctionWithDelegation(String name, int numpar, boolean pure, boolean transitive,
                                               QuinnFunction<Context, Context.Type, Expression, Tokenizer.Token, List<LazyValue>, LazyValue> lazyfun)
     {
-        functions.put(name, new AbstractLazyFunction(numpar, name)
+        ownFunctions().put(name, new AbstractLazyFunction(numpar, name)
         {
             @Override
             public boolean pure()
@@ -301,7 +415,7 @@ public class Expression
     public void addFunctionWithDelegation(String name, int numpar, boolean pure, boolean transitive,
                                           QuinnFunction<Context, Context.Type, Expression, Tokenizer.Token, List<Value>, Value> fun)
     {
-        functions.put(name, new AbstractLazyFunction(numpar, name)
+        ownFunctions().put(name, new AbstractLazyFunction(numpar, name)
         {
             @Override
             public boolean pure()
@@ -334,7 +448,7 @@ public class Expression
     public void addLazyBinaryOperator(String surface, int precedence, boolean leftAssoc, boolean pure, Function<Context.Type, Context.Type> typer,
                                       QuadFunction<Context, Context.Type, LazyValue, LazyValue, LazyValue> lazyfun)
     {
-        operators.put(surface, new AbstractLazyOperator(precedence, leftAssoc)
+        ownOperators().put(surface, new AbstractLazyOperator(precedence, leftAssoc)
         {
 
             @Override
@@ -374,7 +488,7 @@ public class Expression
     public void addBinaryContextOperator(String surface, int precedence, boolean leftAssoc, boolean pure, boolean transitive,
                                          QuadFunction<Context, Context.Type, Value, Value, Value> fun)
     {
-        operators.put(surface, new AbstractLazyOperator(precedence, leftAssoc)
+        ownOperators().put(surface, new AbstractLazyOperator(precedence, leftAssoc)
         {
             @Override
             public boolean pure()
@@ -433,7 +547,7 @@ public class Expression
 
     public void addUnaryOperator(String surface, boolean leftAssoc, Function<Value, Value> fun)
     {
-        operators.put(surface + "u", new AbstractUnaryOperator(Operators.precedence.get("unary+-!..."), leftAssoc)
+        ownOperators().put(surface + "u", new AbstractUnaryOperator(Operators.precedence.get("unary+-!..."), leftAssoc)
         {
             @Override
             public Value evalUnary(Value v1)
@@ -445,7 +559,7 @@ public class Expression
 
     public void addBinaryOperator(String surface, int precedence, boolean leftAssoc, BiFunction<Value, Value, Value> fun)
     {
-        operators.put(surface, new AbstractOperator(precedence, leftAssoc)
+        ownOperators().put(surface, new AbstractOperator(precedence, leftAssoc)
         {
             @Override
             public Value eval(Value v1, Value v2)
@@ -458,7 +572,7 @@ public class Expression
 
     public void addUnaryFunction(String name, Function<Value, Value> fun)
     {
-        functions.put(name, new AbstractFunction(1, name)
+        ownFunctions().put(name, new AbstractFunction(1, name)
         {
             @Override
             public Value eval(List<Value> parameters)
@@ -470,7 +584,7 @@ public class Expression
 
     public void addImpureUnaryFunction(String name, Function<Value, Value> fun)
     {
-        functions.put(name, new AbstractFunction(1, name)
+        ownFunctions().put(name, new AbstractFunction(1, name)
         {
             @Override
             public boolean pure()
@@ -488,7 +602,7 @@ public class Expression
 
     public void addBinaryFunction(String name, BiFunction<Value, Value, Value> fun)
     {
-        functions.put(name, new AbstractFunction(2, name)
+        ownFunctions().put(name, new AbstractFunction(2, name)
         {
             @Override
             public Value eval(List<Value> parameters)
@@ -500,7 +614,7 @@ public class Expression
 
     public void addFunction(String name, Function<List<Value>, Value> fun)
     {
-        functions.put(name, new AbstractFunction(-1, name)
+        ownFunctions().put(name, new AbstractFunction(-1, name)
         {
             @Override
             public Value eval(List<Value> parameters)
@@ -512,7 +626,7 @@ public class Expression
 
     public void addImpureFunction(String name, Function<List<Value>, Value> fun)
     {
-        functions.put(name, new AbstractFunction(-1, name)
+        ownFunctions().put(name, new AbstractFunction(-1, name)
         {
             @Override
             public boolean pure()
@@ -553,7 +667,7 @@ public class Expression
 
     public void addLazyFunction(String name, int numParams, TriFunction<Context, Context.Type, List<LazyValue>, LazyValue> fun)
     {
-        functions.put(name, new AbstractLazyFunction(numParams, name)
+        ownFunctions().put(name, new AbstractLazyFunction(numParams, name)
         {
             @Override
             public boolean pure()
@@ -591,7 +705,7 @@ public class Expression
 
     public void addLazyFunction(String name, TriFunction<Context, Context.Type, List<LazyValue>, LazyValue> fun)
     {
-        functions.put(name, new AbstractLazyFunction(-1, name)
+        ownFunctions().put(name, new AbstractLazyFunction(-1, name)
         {
             @Override
             public boolean pure()
@@ -623,7 +737,7 @@ public class Expression
 
     public void addPureLazyFunction(String name, int num_params, Function<Context.Type, Context.Type> typer, TriFunction<Context, Context.Type, List<LazyValue>, LazyValue> fun)
     {
-        functions.put(name, new AbstractLazyFunction(num_params, name)
+        ownFunctions().put(name, new AbstractLazyFunction(num_params, name)
         {
             @Override
             public boolean pure()
@@ -661,7 +775,7 @@ public class Expression
 
     public void addContextFunction(String name, int num_params, TriFunction<Context, Context.Type, List<Value>, Value> fun)
     {
-        functions.put(name, new AbstractLazyFunction(num_params, name)
+        ownFunctions().put(name, new AbstractLazyFunction(num_params, name)
         {
             @Override
             public boolean pure()
@@ -694,7 +808,7 @@ public class Expression
 
     public void addTypedContextFunction(String name, int num_params, Context.Type reqType, TriFunction<Context, Context.Type, List<Value>, Value> fun)
     {
-        functions.put(name, new AbstractLazyFunction(num_params, name)
+        ownFunctions().put(name, new AbstractLazyFunction(num_params, name)
         {
             @Override
             public boolean pure()
@@ -746,7 +860,8 @@ public class Expression
             }
             else
             {
-                contextValues.put(outer, lv);
+                // loop variables are reused between iterations
+                contextValues.put(outer, lv instanceof final LazyValue.Slot slot ? slot.snapshot() : lv);
             }
         }
         if (contextValues.isEmpty())
@@ -766,7 +881,7 @@ public class Expression
     public void alias(String copy, String original)
     {
         ILazyFunction originalFunction = functions.get(original);
-        functions.put(copy, new ILazyFunction()
+        ownFunctions().put(copy, new ILazyFunction()
         {
             @Override
             public int getNumParams()
@@ -841,22 +956,114 @@ public class Expression
         return variable;
     }
 
+    /**
+     * Locals get their slot in the symbol table, so reading them doesn't need a lookup by name,
+     * globals are still resolved by name via the host
+     */
+    private LazyValue compileVariable(String name)
+    {
+        if (name.startsWith("global_"))
+        {
+            return (c, t) -> getOrSetAnyVariable(c, name).evalValue(c, t);
+        }
+        return new Variable(name, symbols.slotFor(name));
+    }
+
+    private LazyValue compileCall(ILazyFunction f, Tokenizer.Token token, List<LazyValue> params)
+    {
+        LazyValue call = (c, t) -> f.lazyEval(c, t, this, token, params).evalValue(c, t);
+        return token.surface.equals("l") ? new ListConstructor(call, params) : call;
+    }
+
+    /**
+     * Compiled local variable, which assignments to it also use, so writes skip the lookup by name as well
+     */
+    private final class Variable implements LazyValue
+    {
+        private final String name;
+        private final int slot;
+
+        private Variable(String name, int slot)
+        {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override
+        public Value evalValue(Context c, Context.Type type)
+        {
+            LazyValue variable = c.getVariable(symbols, slot, name);
+            return (variable != null ? variable : getOrSetAnyVariable(c, name)).evalValue(c, type);
+        }
+    }
+
+    /**
+     * List literal compiled with its items, so destructuring into it can assign variables by slot
+     */
+    private record ListConstructor(LazyValue list, List<LazyValue> items) implements LazyValue
+    {
+        @Override
+        public Value evalValue(Context c, Context.Type type)
+        {
+            return list.evalValue(c, type);
+        }
+    }
+
+    /**
+     * Assigns a variable from the left hand side of an assignment, by its slot if the compiler resolved one
+     *
+     * @param target compiled left hand side the name was taken from
+     */
+    public void setVariable(Context c, LazyValue target, String name, LazyValue lv)
+    {
+        if (target instanceof final Variable variable && variable.name.equals(name))
+        {
+            c.setVariable(symbols, variable.slot, name, lv);
+        }
+        else
+        {
+            setAnyVariable(c, name, lv);
+        }
+    }
+
+    /**
+     * @return compiled item of a list literal on the left hand side of an assignment, to pass to {@link #setVariable}
+     */
+    public LazyValue listItem(LazyValue target, int index)
+    {
+        return target instanceof final ListConstructor list ? list.items().get(index) : target;
+    }
+
     public static final Expression none = new Expression("null");
 
     /**
      * @param expression .
      */
     public Expression(String expression)
+    {
+        this(expression, LANGUAGE);
+    }
+
+    /**
+     * @param expression .
+     * @param builtins operators and functions available to the expression, or null for none
+     */
+    public Expression(String expression, @Nullable Builtins builtins)
     {
         this.expression = expression.stripTrailing().replaceAll("\\r\\n?", "\n").replaceAll("\\t", "   ");
-        Operators.apply(this);
-        ControlFlow.apply(this);
-        Functions.apply(this);
-        Arithmetic.apply(this);
-        Sys.apply(this);
-        Threading.apply(this);
-        Loops.apply(this);
-        DataStructures.apply(this);
+        if (builtins == null)
+        {
+            operators = new Object2ObjectOpenHashMap<>();
+            functions = new Object2ObjectOpenHashMap<>();
+            functionalEquivalence = new Object2ObjectOpenHashMap<>();
+        }
+        else
+        {
+            operators = builtins.operators();
+            functions = builtins.functions();
+            functionalEquivalence = builtins.functionalEquivalence();
+            sharedBuiltins = true;
+        }
     }
 
 
@@ -1109,7 +1316,7 @@ public class Expression
                     }
                     else
                     {
-                        nodeStack.push(new ExpressionNode(((c, t) -> getOrSetAnyVariable(c, token.surface).evalValue(c, t)), Collections.emptyList(), token));
+                        nodeStack.push(new ExpressionNode(compileVariable(token.surface), Collections.emptyList(), token));
                     }
                 }
                 case FUNCTION -> {
@@ -1145,7 +1352,7 @@ public class Expression
                     }
                     List<LazyValue> params = p.stream().map(n -> n.op).collect(Collectors.toList());
                     nodeStack.push(new ExpressionNode(
-                            (c, t) -> f.lazyEval(c, t, this, token, params).evalValue(c, t),
+                            compileCall(f, token, params),
                             p, token
                     ));
                 }
@@ -1248,9 +1455,126 @@ public class Expression
                 }
             }
         }
+        signalControlFlow(optimizeOnlyContext, root, Context.Type.NONE, scriptsDebugging);
         return extractOp(optimizeOnlyContext, root, Context.Type.NONE);
     }
 
+    /**
+     * Loops taking break and continue signalled via the context, with the position of their body argument, -1 for the last one
+     */
+    private static final Map<String, Integer> SIGNALLING_LOOPS = Map.of(
+            "while", -1, "loop", 1, "map", 1, "filter", 1, "for", 1, "c_for", 3, "reduce", 1
+    );
+
+    /**
+     * Return, break or continue, used as statements of a function or loop body, get replaced with nodes
+     * that signal them via the context instead of throwing, see {@link Context.Signal}.
+     * These in any other place, like in an argument of a function, or a return from inside a loop, are still thrown.
+     */
+    private void signalControlFlow(Context ctx, ExpressionNode node, Context.Type expectedType, boolean scriptsDebugging)
+    {
+        Tokenizer.Token.TokenType token = node.token.type;
+        if (!token.isFunctional() || node.op instanceof LazyValue.ContextFreeLazyValue || node.op instanceof ControlSignal)
+        {
+            return;
+        }
+        String symbol = node.token.surface;
+        Fluff.EvalNode operation = ((token == Tokenizer.Token.TokenType.FUNCTION) ? functions : operators).get(symbol);
+        Context.Type requestedType = operation.staticType(expectedType);
+        for (ExpressionNode arg : node.args)
+        {
+            signalControlFlow(ctx, arg, requestedType, scriptsDebugging);
+        }
+        if (token == Tokenizer.Token.TokenType.OPERATOR && symbol.equals("->") && expectedType != Context.Type.MAPDEF && node.args.size() == 2)
+        {
+            signalStatements(ctx, node.args.get(1), false, scriptsDebugging);
+        }
+        else if (token == Tokenizer.Token.TokenType.FUNCTION && SIGNALLING_LOOPS.containsKey(symbol) && !node.args.isEmpty())
+        {
+            int body = SIGNALLING_LOOPS.get(symbol);
+            if (body < 0)
+            {
+                body = node.args.size() - 1;
+            }
+            else if (((ILazyFunction) operation).getNumParams() != node.args.size())
+            {
+                return;
+            }
+            signalStatements(ctx, node.args.get(body), true, scriptsDebugging);
+        }
+    }
+
+    private void signalStatements(Context ctx, ExpressionNode node, boolean inLoop, boolean scriptsDebugging)
+    {
+        if (node.op instanceof LazyValue.ContextFreeLazyValue || node.op instanceof ControlSignal)
+        {
+            return;
+        }
+        String symbol = node.token.surface;
+        switch (node.token.type)
+        {
+            case OPERATOR ->
+            {
+                if (symbol.equals(";"))
+                {
+                    node.args.forEach(arg -> signalStatements(ctx, arg, inLoop, scriptsDebugging));
+                }
+            }
+            case FUNCTION ->
+            {
+                Context.Signal signal = switch (symbol)
+                {
+                    case "then" ->
+                    {
+                        node.args.forEach(arg -> signalStatements(ctx, arg, inLoop, scriptsDebugging));
+                        yield Context.Signal.NONE;
+                    }
+                    case "if" ->
+                    {
+                        for (int i = 1; i < node.args.size(); i += 2)
+                        {
+                            signalStatements(ctx, node.args.get(i), inLoop, scriptsDebugging);
+                        }
+                        if (node.args.size() % 2 == 1)
+                        {
+                            signalStatements(ctx, node.args.get(node.args.size() - 1), inLoop, scriptsDebugging);
+                        }
+                        yield Context.Signal.NONE;
+                    }
+                    case "return" -> inLoop ? Context.Signal.NONE : Context.Signal.RETURN;
+                    case "break" -> inLoop ? Context.Signal.BREAK : Context.Signal.NONE;
+                    case "continue" -> inLoop ? Context.Signal.CONTINUE : Context.Signal.NONE;
+                    default -> Context.Signal.NONE;
+                };
+                // unpacked arguments may turn into any number of values, so these are left to the function
+                if (signal == Context.Signal.NONE || node.args.size() > 1 || (node.args.size() == 1 && node.args.get(0).token.surface.startsWith("...")))
+                {
+                    return;
+                }
+                LazyValue arg = node.args.isEmpty() ? null : extractOp(ctx, node.args.get(0), Context.NONE);
+                node.op = new ControlSignal(signal, arg);
+                if (scriptsDebugging)
+                {
+                    CarpetScriptServer.LOG.info(" - Signalling " + symbol + " at line " + (node.token.lineno + 1) + " without throwing");
+                }
+            }
+            default ->
+            {
+            }
+        }
+    }
+
+    private record ControlSignal(Context.Signal signal, @Nullable LazyValue arg) implements LazyValue
+    {
+        @Override
+        public Value evalValue(Context c, Context.Type type)
+        {
+            Value value = arg == null ? (signal == Context.Signal.RETURN ? Value.NULL : null) : arg.evalValue(c, Context.NONE);
+            c.signal(signal, value);
+            return value == null ? Value.NULL : value;
+        }
+    }
+
     private int treeSize(ExpressionNode node)
     {
         return node.op instanceof LazyValue.ContextFreeLazyValue ? 1 : node.args.stream().mapToInt(this::treeSize).sum() + 1;
@@ -1470,6 +1794,10 @@ public class Expression
 
     private LazyValue extractOp(Context ctx, ExpressionNode node, Context.Type expectedType)
     {
+        if (node.op instanceof ControlSignal)
+        {
+            return node.op;
+        }
         if (node.op instanceof LazyValue.Constant)
         {
             // constants are immutable
@@ -1504,13 +1832,13 @@ public class Expression
                 return (c, t) -> op.lazyEval(c, t, this, token, arg, arh).evalValue(c, t);
             }
             case VARIABLE:
-                return (c, t) -> getOrSetAnyVariable(c, token.surface).evalValue(c, t);
+                return compileVariable(token.surface);
             case FUNCTION:
             {
                 ILazyFunction f = functions.get(token.surface);
                 Context.Type requestedType = f.staticType(expectedType);
                 List<LazyValue> params = node.args.stream().map(n -> extractOp(ctx, n, requestedType)).collect(Collectors.toList());
-                return (c, t) -> f.lazyEval(c, t, this, token, params).evalValue(c, t);
+                return compileCall(f, token, params);
             }
             case CONSTANT:
                 return node.op;
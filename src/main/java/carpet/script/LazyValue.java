@@ -1,5 +1,6 @@
 package carpet.script;
 
+import carpet.script.value.NumericValue;
 import carpet.script.value.Value;
 
 /**
@@ -66,4 +67,63 @@ public interface LazyValue
             return result.fromConstant();
         }
     }
+
+    /**
+     * Reusable, mutable holder for loop variables like '_', '_i' or '_x', updated in place
+     * on each iteration instead of binding a new lazy value to the context every time.
+     * Numeric values are only materialized when the variable is actually read.
+     */
+    class Slot implements LazyValue
+    {
+        private final String name;
+        private Value value;
+        private long number;
+
+        public Slot(String name)
+        {
+            this.name = name;
+            this.value = Value.NULL;
+        }
+
+        public Slot(String name, long number)
+        {
+            this.name = name;
+            set(number);
+        }
+
+        /**
+         * Sets the slot to the value, as is, leaving its binding to the caller
+         */
+        public Slot set(Value value)
+        {
+            this.value = value;
+            return this;
+        }
+
+        public Slot set(long number)
+        {
+            this.number = number;
+            this.value = null;
+            return this;
+        }
+
+        /**
+         * @return lazy value frozen with the current content, for anything that outlives the iteration
+         */
+        public LazyValue snapshot()
+        {
+            Value current = evalValue(null, Context.NONE);
+            return (c, t) -> current;
+        }
+
+        @Override
+        public Value evalValue(Context c, Context.Type type)
+        {
+            if (value == null)
+            {
+                value = new NumericValue(number).bindTo(name);
+            }
+            return value;
+        }
+    }
 }
@@ -10,6 +10,8 @@ import java.util.Objects;
 import org.apache.commons.io.IOUtils;
 
 import carpet.script.argument.FileArgument;
+import carpet.script.utils.AppDataWriter;
+import carpet.script.utils.PathLocks;
 import net.minecraft.nbt.Tag;
 
 public record Module(String name, String code, boolean library)
@@ -90,16 +92,27 @@ public record Module(String name, String code, boolean library)
     public static Tag getData(Module module, ScriptServer scriptServer)
     {
         Path dataFile = resolveResource(module, scriptServer);
-        if (dataFile == null || !Files.exists(dataFile) || !(Files.isRegularFile(dataFile)))
+        if (dataFile == null)
         {
             return null;
         }
-        synchronized (FileArgument.writeIOSync)
-        {
+        return PathLocks.withLock(dataFile, () -> {
+            Tag pending = AppDataWriter.getPending(dataFile);
+            if (pending != null)
+            {
+                return pending;
+            }
+            if (!Files.exists(dataFile) || !(Files.isRegularFile(dataFile)))
+            {
+                return null;
+            }
             return FileArgument.readTag(dataFile);
-        }
+        });
     }
 
+    /**
+     * Saves app data in the background, the tag is copied so it can be changed right after
+     */
     public static void saveData(Module module, Tag globalState, ScriptServer scriptServer)
     {
         Path dataFile = resolveResource(module, scriptServer);
@@ -107,21 +120,7 @@ public record Module(String name, String code, boolean library)
         {
             return;
         }
-        if (!Files.exists(dataFile.getParent()))
-        {
-            try
-            {
-                Files.createDirectories(dataFile.getParent());
-            }
-            catch (IOException e)
-            {
-                throw new IllegalStateException(e);
-            }
-        }
-        synchronized (FileArgument.writeIOSync)
-        {
-            FileArgument.writeTagDisk(globalState, dataFile, false);
-        }
+        AppDataWriter.submit(dataFile, globalState.copy());
     }
 
     private static Path resolveResource(Module module, ScriptServer scriptServer)
@@ -0,0 +1,200 @@
+package carpet.script;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local variables of a {@link Context}.
+ * Variables that the compiler resolved to a slot of a {@link SymbolTable} are kept in a flat array, indexed directly
+ * by compiled code. The scope binds to the table of the first compiled code that accesses it by slot.
+ * Everything else, like names used only dynamically via var(), or variables accessed by code compiled with a different
+ * table, is stored by name.
+ * Name based access always picks the same storage as slot access, so both views stay consistent.
+ * Entry and key sets are snapshots, changes should go through the map methods.
+ */
+public class Scope extends AbstractMap<String, LazyValue>
+{
+    private static final LazyValue[] EMPTY = new LazyValue[0];
+
+    @Nullable
+    private SymbolTable symbols;
+    private LazyValue[] slots = EMPTY;
+    // most scopes only ever hold compiled variables
+    @Nullable
+    private Map<String, LazyValue> named;
+
+    @Nullable
+    public LazyValue get(SymbolTable table, int slot, String name)
+    {
+        if (table != symbols && !bindTo(table))
+        {
+            return get(name);
+        }
+        return slot < slots.length ? slots[slot] : null;
+    }
+
+    public void put(SymbolTable table, int slot, String name, LazyValue value)
+    {
+        if (table != symbols && !bindTo(table))
+        {
+            put(name, value);
+            return;
+        }
+        store(slot, value);
+    }
+
+    /**
+     * Lays out the scope for the table up front, before anything is stored,
+     * so a new function frame gets its slots right away
+     */
+    public void bind(SymbolTable table)
+    {
+        bindTo(table);
+    }
+
+    private boolean bindTo(SymbolTable table)
+    {
+        if (symbols != null)
+        {
+            return false;
+        }
+        symbols = table;
+        slots = new LazyValue[table.size()];
+        if (named == null)
+        {
+            return true;
+        }
+        // moving over whatever got set by name before any compiled code touched the scope
+        named.entrySet().removeIf(e -> {
+            int slot = table.indexOf(e.getKey());
+            if (slot < 0)
+            {
+                return false;
+            }
+            slots[slot] = e.getValue();
+            return true;
+        });
+        return true;
+    }
+
+    private void store(int slot, @Nullable LazyValue value)
+    {
+        if (slot >= slots.length)
+        {
+            if (value == null)
+            {
+                return;
+            }
+            slots = Arrays.copyOf(slots, symbols.size());
+        }
+        slots[slot] = value;
+    }
+
+    private int slotOf(Object name)
+    {
+        return symbols == null || !(name instanceof final String str) ? -1 : symbols.indexOf(str);
+    }
+
+    @Override
+    public LazyValue get(Object name)
+    {
+        int slot = slotOf(name);
+        if (slot < 0)
+        {
+            return named == null ? null : named.get(name);
+        }
+        return slot < slots.length ? slots[slot] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object name)
+    {
+        return get(name) != null;
+    }
+
+    @Override
+    public LazyValue put(String name, LazyValue value)
+    {
+        int slot = slotOf(name);
+        if (slot < 0)
+        {
+            if (named == null)
+            {
+                named = new HashMap<>();
+            }
+            return named.put(name, value);
+        }
+        LazyValue previous = slot < slots.length ? slots[slot] : null;
+        store(slot, value);
+        return previous;
+    }
+
+    @Override
+    public LazyValue remove(Object name)
+    {
+        int slot = slotOf(name);
+        if (slot < 0)
+        {
+            return named == null ? null : named.remove(name);
+        }
+        LazyValue previous = slot < slots.length ? slots[slot] : null;
+        store(slot, null);
+        return previous;
+    }
+
+    public void removeWithPrefix(String prefix)
+    {
+        if (named != null)
+        {
+            named.keySet().removeIf(k -> k.startsWith(prefix));
+        }
+        for (int i = 0; i < slots.length; i++)
+        {
+            if (slots[i] != null && symbols.nameOf(i).startsWith(prefix))
+            {
+                slots[i] = null;
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        named = null;
+        Arrays.fill(slots, null);
+    }
+
+    @Override
+    public Set<String> keySet()
+    {
+        Set<String> names = named == null ? new HashSet<>() : new HashSet<>(named.keySet());
+        for (int i = 0; i < slots.length; i++)
+        {
+            if (slots[i] != null)
+            {
+                names.add(symbols.nameOf(i));
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public Set<Entry<String, LazyValue>> entrySet()
+    {
+        Map<String, LazyValue> snapshot = named == null ? new HashMap<>() : new HashMap<>(named);
+        for (int i = 0; i < slots.length; i++)
+        {
+            if (slots[i] != null)
+            {
+                snapshot.put(symbols.nameOf(i), slots[i]);
+            }
+        }
+        return Collections.unmodifiableMap(snapshot).entrySet();
+    }
+}
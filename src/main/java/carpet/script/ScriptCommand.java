@@ -3,6 +3,7 @@ package carpet.script;
 import carpet.script.external.Carpet;
 import carpet.script.external.Vanilla;
 import carpet.script.utils.AppStoreManager;
+import carpet.script.utils.ExpressionCache;
 import carpet.script.exception.CarpetExpressionException;
 import carpet.script.value.FunctionValue;
 import carpet.script.value.Value;
@@ -48,6 +49,8 @@ import static net.minecraft.commands.SharedSuggestionProvider.suggest;
 
 public class ScriptCommand
 {
+    private static final int SCARPET_RUN = Carpet.profilerSection("Scarpet run");
+
     private static final TreeSet<String> scarpetFunctions;
     private static final TreeSet<String> APIFunctions;
 
@@ -148,6 +151,10 @@ public class ScriptCommand
         LiteralArgumentBuilder<CommandSourceStack> b = literal("globals").
                 executes(context -> listGlobals(context, false)).
                 then(literal("all").executes(context -> listGlobals(context, true)));
+        LiteralArgumentBuilder<CommandSourceStack> p = literal("tasks").
+                executes(ScriptCommand::listTaskPools);
+        LiteralArgumentBuilder<CommandSourceStack> k = literal("cache").
+                executes(ScriptCommand::showExpressionCache);
         LiteralArgumentBuilder<CommandSourceStack> o = literal("stop").
                 executes((cc) -> {
                     ss(cc).stopAll = true;
@@ -361,13 +368,13 @@ public class ScriptCommand
 
         dispatcher.register(literal("script").
                 requires(Vanilla::ServerPlayer_canScriptGeneral).
-                then(b).then(u).then(o).then(l).then(s).then(c).then(h).then(i).then(e).then(t).then(a).then(f).then(q).then(d).then(r));
+                then(b).then(p).then(u).then(o).then(l).then(s).then(c).then(h).then(i).then(e).then(t).then(a).then(f).then(q).then(d).then(r).then(k));
         dispatcher.register(literal("script").
                 requires(Vanilla::ServerPlayer_canScriptGeneral).
                 then(literal("in").
                         then(argument("app", StringArgumentType.word()).
                                 suggests((cc, bb) -> suggest(ss(cc).modules.keySet(), bb)).
-                                then(b).then(u).then(o).then(l).then(s).then(c).then(h).then(i).then(e).then(t))));
+                                then(b).then(p).then(u).then(o).then(l).then(s).then(c).then(h).then(i).then(e).then(t))));
     }
 
     private static CarpetScriptHost getHost(CommandContext<CommandSourceStack> context) throws CommandSyntaxException
@@ -457,11 +464,37 @@ public class ScriptCommand
         return 1;
     }
 
+    private static int showExpressionCache(CommandContext<CommandSourceStack> context)
+    {
+        CommandSourceStack source = context.getSource();
+        ExpressionCache cache = ss(context).expressionCache;
+        Carpet.Messenger_message(source, "lb Compiled expressions cache:");
+        Carpet.Messenger_message(source, "w " + cache.getStats().getPrettyString());
+        return 1;
+    }
+
+    private static int listTaskPools(CommandContext<CommandSourceStack> context) throws CommandSyntaxException
+    {
+        CarpetScriptHost host = getHost(context);
+        CommandSourceStack source = context.getSource();
+        CarpetScriptServer scriptServer = ss(context);
+        Carpet.Messenger_message(source, "lb Task pools" + ((host == scriptServer.globalHost) ? ":" : " in " + host.getName() + ":"));
+        if (host.getTaskPools().isEmpty())
+        {
+            Carpet.Messenger_message(source, "gi No tasks were run yet");
+            return 0;
+        }
+        host.getTaskPools().forEach((pool, executor) -> {
+            Carpet.Messenger_message(source, "wb " + (pool.isNull() ? "default" : pool.getString()) + ": ", "w " + executor.getStats().getPrettyString());
+        });
+        return host.getTaskPools().size();
+    }
+
     public static int handleCall(CommandSourceStack source, CarpetScriptHost host, Supplier<Value> call)
     {
         try
         {
-            Runnable token = Carpet.startProfilerSection("Scarpet run");
+            long token = Carpet.startProfilerSection();
             host.setChatErrorSnooper(source);
             long start = System.nanoTime();
             Value result = call.get();
@@ -479,7 +512,7 @@ public class ScriptCommand
             }
             Carpet.Messenger_message(source, "wi  = ", "wb " + result.getString(), "gi  (" + time + metric + ")");
             int intres = (int) result.readInteger();
-            token.run();
+            Carpet.endProfilerSection(SCARPET_RUN, token);
             return intres;
         }
         catch (CarpetExpressionException e)
@@ -531,8 +564,8 @@ public class ScriptCommand
         CommandSourceStack source = context.getSource();
         CarpetScriptHost host = getHost(context);
         return handleCall(source, host, () -> {
-            CarpetExpression ex = new CarpetExpression(host.main, expr, source, new BlockPos(0, 0, 0));
-            return ex.scriptRunCommand(host, BlockPos.containing(source.getPosition()));
+            CarpetExpression ex = ss(context).expressionCache.get(host, expr, () -> new CarpetExpression(host.main, expr, source, BlockPos.ZERO));
+            return ex.scriptRunCommand(host, source, BlockPos.ZERO, BlockPos.containing(source.getPosition()));
         });
     }
 
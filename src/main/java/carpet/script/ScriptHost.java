@@ -3,6 +3,10 @@ package carpet.script;
 import carpet.script.exception.ExpressionException;
 import carpet.script.exception.IntegrityException;
 import carpet.script.exception.InternalExpressionException;
+import carpet.script.exception.ThrowStatement;
+import carpet.script.utils.ScriptLocks;
+import carpet.script.utils.TaskPool;
+import carpet.script.value.FileHandleValue;
 import carpet.script.value.FunctionValue;
 import carpet.script.value.Value;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
@@ -21,7 +25,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -31,8 +34,9 @@ public abstract class ScriptHost
     private static final Map<Long, Random> randomizers = new Long2ObjectOpenHashMap<>();
 
     public static Thread mainThread = null;
-    private final Map<Value, ThreadPoolExecutor> executorServices = new HashMap<>();
-    private final Map<Value, Object> locks = new ConcurrentHashMap<>();
+    private final Map<Value, TaskPool> executorServices = new ConcurrentHashMap<>();
+    private final ScriptLocks locks = new ScriptLocks();
+    private final Set<FileHandleValue> openFiles = ConcurrentHashMap.newKeySet();
     private final ScriptServer scriptServer;
     protected boolean inTermination = false;
     public boolean strict;
@@ -457,34 +461,70 @@ public abstract class ScriptHost
 
     protected abstract ScriptHost duplicate();
 
-    public Object getLock(Value name)
+    public ScriptLocks getLocks()
     {
-        return locks.computeIfAbsent(name, n -> new Object());
+        return locks;
     }
 
-    public ThreadPoolExecutor getExecutor(Value pool)
+    /**
+     * Files opened with open_file, closed together with the host
+     */
+    public Set<FileHandleValue> getOpenFiles()
+    {
+        return openFiles;
+    }
+
+    public TaskPool getExecutor(Value pool)
     {
         if (inTermination)
         {
             return null;
         }
-        return executorServices.computeIfAbsent(pool, v -> (ThreadPoolExecutor) Executors.newCachedThreadPool());
+        return executorServices.computeIfAbsent(pool, v -> new TaskPool(
+                "scarpet-" + (getName() == null ? "global" : getName()) + "-" + (v.isNull() ? "default" : v.getString()),
+                getTaskPoolConfig(v)
+        ));
+    }
+
+    /**
+     * Settings for a pool of tasks, read when the pool is first used
+     */
+    protected TaskPool.Config getTaskPoolConfig(Value pool)
+    {
+        return TaskPool.Config.DEFAULT;
+    }
+
+    public Map<Value, TaskPool> getTaskPools()
+    {
+        return executorServices;
     }
 
     public int taskCount()
     {
-        return executorServices.values().stream().map(ThreadPoolExecutor::getActiveCount).reduce(0, Integer::sum);
+        return executorServices.values().stream().map(TaskPool::activeCount).reduce(0, Integer::sum);
     }
 
     public int taskCount(Value pool)
     {
-        return executorServices.containsKey(pool) ? executorServices.get(pool).getActiveCount() : 0;
+        TaskPool executor = executorServices.get(pool);
+        return executor != null ? executor.activeCount() : 0;
     }
 
     public void onClose()
     {
         inTermination = true;
-        executorServices.values().forEach(ThreadPoolExecutor::shutdown);
+        executorServices.values().forEach(TaskPool::shutdown);
+        for (FileHandleValue file : List.copyOf(openFiles))
+        {
+            try
+            {
+                file.close();
+            }
+            catch (ThrowStatement e)
+            {
+                CarpetScriptServer.LOG.warn("Unable to close " + file.getString() + " of " + getName());
+            }
+        }
         for (ScriptHost uh : userHosts.values())
         {
             uh.onClose();
@@ -0,0 +1,75 @@
+package carpet.script;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Local variable names seen by the compiler for a single expression, each given a slot number,
+ * so compiled code can access variables in a {@link Scope} by index instead of by name.
+ * Slots are only assigned while the expression is being compiled, and never change after that.
+ */
+public class SymbolTable
+{
+    /**
+     * Never modified once published, so lookups from running code don't need to lock
+     * while another thread compiles into the same table
+     */
+    private record Slots(Object2IntOpenHashMap<String> slots, String[] names)
+    {
+    }
+
+    private volatile Slots current;
+
+    /**
+     * @param predefined variables given the first slots up front, even if the code never uses them
+     */
+    public SymbolTable(String... predefined)
+    {
+        Object2IntOpenHashMap<String> slots = new Object2IntOpenHashMap<>();
+        slots.defaultReturnValue(-1);
+        current = new Slots(slots, new String[0]);
+        for (String name : predefined)
+        {
+            slotFor(name);
+        }
+    }
+
+    /**
+     * Assigns a slot to the variable at compile time, or returns the one it already has
+     */
+    public synchronized int slotFor(String name)
+    {
+        Slots known = current;
+        int slot = known.slots().getInt(name);
+        if (slot < 0)
+        {
+            slot = known.names().length;
+            Object2IntOpenHashMap<String> slots = new Object2IntOpenHashMap<>(known.slots());
+            slots.defaultReturnValue(-1);
+            slots.put(name, slot);
+            String[] names = Arrays.copyOf(known.names(), slot + 1);
+            names[slot] = name;
+            current = new Slots(slots, names);
+        }
+        return slot;
+    }
+
+    /**
+     * @return slot of a variable, or -1 if compiled code never referenced it directly
+     */
+    public int indexOf(String name)
+    {
+        return current.slots().getInt(name);
+    }
+
+    public String nameOf(int slot)
+    {
+        return current.names()[slot];
+    }
+
+    public int size()
+    {
+        return current.names().length;
+    }
+}
@@ -140,6 +140,14 @@ public final class AnnotationParser
         }
     }
 
+    /**
+     * @return The number of functions parsed so far
+     */
+    public static int functionCount()
+    {
+        return functionList.size();
+    }
+
     /**
      * <p>Adds all parsed functions to the given {@link Expression}.</p>
      * <p>This is handled automatically by Carpet</p>
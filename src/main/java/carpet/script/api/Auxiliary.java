@@ -25,6 +25,7 @@ import carpet.script.utils.ShapeDispatcher;
 import carpet.script.utils.WorldTools;
 import carpet.script.value.BooleanValue;
 import carpet.script.value.EntityValue;
+import carpet.script.value.FileHandleValue;
 import carpet.script.value.FormattedTextValue;
 import carpet.script.value.LazyListValue;
 import carpet.script.value.ListValue;
@@ -887,14 +888,14 @@ public class Auxiliary
             return result[0];
         });
 
-        expression.addContextFunction("schedule", -1, (c, t, lv) -> {
+        expression.addFunctionWithDelegation("schedule", -1, false, false, (c, t, expr, tok, lv) -> {
             if (lv.size() < 2)
             {
                 throw new InternalExpressionException("'schedule' should have at least 2 arguments, delay and call name");
             }
             long delay = NumericValue.asNumber(lv.get(0)).getLong();
 
-            FunctionArgument functionArgument = FunctionArgument.findIn(c, expression.module, lv, 1, false, false);
+            FunctionArgument functionArgument = FunctionArgument.findIn(c, expr.module, lv, 1, false, false);
             ((CarpetScriptServer)c.host.scriptServer()).events.scheduleCall(
                     (CarpetContext) c,
                     functionArgument.function,
@@ -942,8 +943,63 @@ public class Auxiliary
             return files == null ? Value.NULL : ListValue.wrap(files.map(StringValue::of));
         });
 
-        expression.addContextFunction("read_file", 2, (c, t, lv) ->
+        expression.addContextFunction("open_file", -1, (c, t, lv) ->
         {
+            FileHandleValue.Mode mode;
+            try
+            {
+                mode = lv.size() > 2 ? FileHandleValue.Mode.valueOf(lv.get(2).getString().toUpperCase(Locale.ROOT)) : FileHandleValue.Mode.READ;
+            }
+            catch (IllegalArgumentException ignored)
+            {
+                throw new InternalExpressionException("File can be opened to 'read', 'write' or 'append', not " + lv.get(2).getString());
+            }
+            FileArgument fdesc = FileArgument.from(c, lv, false, mode == FileHandleValue.Mode.READ ? FileArgument.Reason.READ : FileArgument.Reason.CREATE);
+            Function<String, Value> decoder;
+            Function<Value, String> encoder;
+            switch (fdesc.type)
+            {
+                case TEXT -> {
+                    decoder = StringValue::new;
+                    encoder = v -> v.getString() + System.lineSeparator();
+                }
+                case RAW -> {
+                    decoder = StringValue::new;
+                    encoder = Value::getString;
+                }
+                case JSON -> {
+                    // one json value per line
+                    decoder = line -> line.isBlank() ? Value.NULL : GSON.fromJson(line, Value.class);
+                    encoder = v -> v.toJson().toString() + System.lineSeparator();
+                }
+                default -> throw new InternalExpressionException("Only 'text', 'raw' and 'json' files can be opened, not " + lv.get(1).getString());
+            }
+            Path path = ((CarpetScriptHost) c.host).getStreamingPath(fdesc);
+            return path == null ? Value.NULL : new FileHandleValue(c.host, path, fdesc.getDisplayPath(), mode, fdesc.type == FileArgument.Type.JSON, decoder, encoder);
+        });
+
+        expression.addContextFunction("close_file", 1, (c, t, lv) ->
+        {
+            if (!(lv.get(0) instanceof final FileHandleValue file))
+            {
+                throw new InternalExpressionException("'close_file' requires a file handle from 'open_file'");
+            }
+            boolean wasOpen = file.isOpen();
+            file.close();
+            return BooleanValue.of(wasOpen);
+        });
+
+        expression.addContextFunction("read_file", -1, (c, t, lv) ->
+        {
+            if (lv.size() == 1 && lv.get(0) instanceof final FileHandleValue file)
+            {
+                Value line = file.readLine();
+                return line == null ? Value.NULL : line;
+            }
+            if (lv.size() != 2)
+            {
+                throw new InternalExpressionException("'read_file' requires a file handle, or a file path and a file type");
+            }
             FileArgument fdesc = FileArgument.from(c, lv, false, FileArgument.Reason.READ);
             if (fdesc.type == FileArgument.Type.NBT)
             {
@@ -968,6 +1024,11 @@ public class Auxiliary
                 BooleanValue.of(((CarpetScriptHost) c.host).removeResourceFile(FileArgument.from(c, lv, false, FileArgument.Reason.DELETE))));
 
         expression.addContextFunction("write_file", -1, (c, t, lv) -> {
+            if (lv.size() > 1 && lv.get(0) instanceof final FileHandleValue file)
+            {
+                file.write(lv.subList(1, lv.size()));
+                return Value.TRUE;
+            }
             if (lv.size() < 3)
             {
                 throw new InternalExpressionException("'write_file' requires three or more arguments");
@@ -1078,14 +1139,14 @@ public class Auxiliary
         });
 
         //handle_event('event', function...)
-        expression.addContextFunction("handle_event", -1, (c, t, lv) ->
+        expression.addFunctionWithDelegation("handle_event", -1, false, false, (c, t, expr, tok, lv) ->
         {
             if (lv.size() < 2)
             {
                 throw new InternalExpressionException("'handle_event' requires at least two arguments, event name, and a callback");
             }
             String event = lv.get(0).getString();
-            FunctionArgument callback = FunctionArgument.findIn(c, expression.module, lv, 1, true, false);
+            FunctionArgument callback = FunctionArgument.findIn(c, expr.module, lv, 1, true, false);
             CarpetScriptHost host = ((CarpetScriptHost) c.host);
             if (callback.function == null)
             {
@@ -10,6 +10,7 @@ import carpet.script.argument.Vector3Argument;
 import carpet.script.exception.BreakStatement;
 import carpet.script.exception.ContinueStatement;
 import carpet.script.exception.InternalExpressionException;
+import carpet.script.utils.SectionedBlockIterator;
 import carpet.script.value.BlockValue;
 import carpet.script.value.LazyListValue;
 import carpet.script.value.ListValue;
@@ -92,62 +93,11 @@ public class BlockIterators
             int cx = center.getX();
             int cy = center.getY();
             int cz = center.getZ();
-            int xrange = range.getX();
-            int yrange = range.getY();
-            int zrange = range.getZ();
-            int xprange = upperRange.getX();
-            int yprange = upperRange.getY();
-            int zprange = upperRange.getZ();
-
-            //saving outer scope
-            LazyValue xVal = c.getVariable("_x");
-            LazyValue yVal = c.getVariable("_y");
-            LazyValue zVal = c.getVariable("_z");
-            LazyValue defaultVal = c.getVariable("_");
-            int sCount = 0;
-            outer:
-            for (int y = cy - yrange; y <= cy + yprange; y++)
-            {
-                int yFinal = y;
-                c.setVariable("_y", (ct, tt) -> new NumericValue(yFinal).bindTo("_y"));
-                for (int x = cx - xrange; x <= cx + xprange; x++)
-                {
-                    int xFinal = x;
-                    c.setVariable("_x", (ct, tt) -> new NumericValue(xFinal).bindTo("_x"));
-                    for (int z = cz - zrange; z <= cz + zprange; z++)
-                    {
-                        int zFinal = z;
-
-                        c.setVariable("_z", (ct, tt) -> new NumericValue(zFinal).bindTo("_z"));
-                        Value blockValue = BlockValue.fromCoords(((CarpetContext) c), xFinal, yFinal, zFinal).bindTo("_");
-                        c.setVariable("_", (ct, tt) -> blockValue);
-                        Value result;
-                        try
-                        {
-                            result = expr.evalValue(c, t);
-                        }
-                        catch (ContinueStatement notIgnored)
-                        {
-                            result = notIgnored.retval;
-                        }
-                        catch (BreakStatement notIgnored)
-                        {
-                            break outer;
-                        }
-                        if (t != Context.VOID && result.getBoolean())
-                        {
-                            sCount += 1;
-                        }
-                    }
-                }
-            }
-            //restoring outer scope
-            c.setVariable("_x", xVal);
-            c.setVariable("_y", yVal);
-            c.setVariable("_z", zVal);
-            c.setVariable("_", defaultVal);
-            int finalSCount = sCount;
-            return (ct, tt) -> new NumericValue(finalSCount);
+            int sCount = iterateVolume(cc, t, expr,
+                    cx - range.getX(), cy - range.getY(), cz - range.getZ(),
+                    cx + upperRange.getX(), cy + upperRange.getY(), cz + upperRange.getZ()
+            );
+            return (ct, tt) -> new NumericValue(sCount);
         });
 
         // must be lazy
@@ -171,62 +121,9 @@ public class BlockIterators
             int x2 = pos2.getX();
             int y2 = pos2.getY();
             int z2 = pos2.getZ();
-            int minx = min(x1, x2);
-            int miny = min(y1, y2);
-            int minz = min(z1, z2);
-            int maxx = max(x1, x2);
-            int maxy = max(y1, y2);
-            int maxz = max(z1, z2);
             LazyValue expr = llv.get(pos2Locator.offset);
-
-            //saving outer scope
-            LazyValue xVal = c.getVariable("_x");
-            LazyValue yVal = c.getVariable("_y");
-            LazyValue zVal = c.getVariable("_z");
-            LazyValue defaultVal = c.getVariable("_");
-            int sCount = 0;
-            outer:
-            for (int y = miny; y <= maxy; y++)
-            {
-                int yFinal = y;
-                c.setVariable("_y", (ct, tt) -> new NumericValue(yFinal).bindTo("_y"));
-                for (int x = minx; x <= maxx; x++)
-                {
-                    int xFinal = x;
-                    c.setVariable("_x", (ct, tt) -> new NumericValue(xFinal).bindTo("_x"));
-                    for (int z = minz; z <= maxz; z++)
-                    {
-                        int zFinal = z;
-                        c.setVariable("_z", (ct, tt) -> new NumericValue(zFinal).bindTo("_z"));
-                        Value blockValue = BlockValue.fromCoords(((CarpetContext) c), xFinal, yFinal, zFinal).bindTo("_");
-                        c.setVariable("_", (ct, tt) -> blockValue);
-                        Value result;
-                        try
-                        {
-                            result = expr.evalValue(c, t);
-                        }
-                        catch (ContinueStatement notIgnored)
-                        {
-                            result = notIgnored.retval;
-                        }
-                        catch (BreakStatement notIgnored)
-                        {
-                            break outer;
-                        }
-                        if (t != Context.VOID && result.getBoolean())
-                        {
-                            sCount += 1;
-                        }
-                    }
-                }
-            }
-            //restoring outer scope
-            c.setVariable("_x", xVal);
-            c.setVariable("_y", yVal);
-            c.setVariable("_z", zVal);
-            c.setVariable("_", defaultVal);
-            int finalSCount = sCount;
-            return (ct, tt) -> new NumericValue(finalSCount);
+            int sCount = iterateVolume(cc, t, expr, min(x1, x2), min(y1, y2), min(z1, z2), max(x1, x2), max(y1, y2), max(z1, z2));
+            return (ct, tt) -> new NumericValue(sCount);
         });
 
         expression.addContextFunction("neighbours", -1, (c, t, lv) ->
@@ -335,6 +232,7 @@ public class BlockIterators
                 @Override
                 public Value next()
                 {
+                    // states stay lazy, the list may be consumed ticks later, after the chunk got reloaded
                     Value r = BlockValue.fromCoords(cc, x, y, z);
                     //possibly reroll context
                     x++;
@@ -542,4 +440,60 @@ public class BlockIterators
             }
         });
     }
+
+    /**
+     * Evaluates expression over all blocks of the box, with box coordinates relative to the context origin,
+     * reading the states section by section
+     *
+     * @return number of evaluations with positive result
+     */
+    private static int iterateVolume(CarpetContext cc, Context.Type t, LazyValue expr, int minx, int miny, int minz, int maxx, int maxy, int maxz)
+    {
+        BlockPos origin = cc.origin();
+        int ox = origin.getX();
+        int oy = origin.getY();
+        int oz = origin.getZ();
+        ServerLevel level = cc.level();
+        //saving outer scope
+        LazyValue xVal = cc.getVariable("_x");
+        LazyValue yVal = cc.getVariable("_y");
+        LazyValue zVal = cc.getVariable("_z");
+        LazyValue defaultVal = cc.getVariable("_");
+        LazyValue.Slot xSlot = new LazyValue.Slot("_x");
+        LazyValue.Slot ySlot = new LazyValue.Slot("_y");
+        LazyValue.Slot zSlot = new LazyValue.Slot("_z");
+        LazyValue.Slot defaultSlot = new LazyValue.Slot("_");
+        int[] sCount = {0};
+        SectionedBlockIterator.forEach(level, minx + ox, miny + oy, minz + oz, maxx + ox, maxy + oy, maxz + oz, (x, y, z, state) ->
+        {
+            cc.setVariable("_x", xSlot.set(x - ox));
+            cc.setVariable("_y", ySlot.set(y - oy));
+            cc.setVariable("_z", zSlot.set(z - oz));
+            cc.setVariable("_", defaultSlot.set(new BlockValue(state, level, new BlockPos(x, y, z)).bindTo("_")));
+            Value result;
+            try
+            {
+                result = expr.evalValue(cc, t);
+            }
+            catch (ContinueStatement notIgnored)
+            {
+                result = notIgnored.retval;
+            }
+            catch (BreakStatement notIgnored)
+            {
+                return false;
+            }
+            if (t != Context.VOID && result.getBoolean())
+            {
+                sCount[0] += 1;
+            }
+            return true;
+        });
+        //restoring outer scope
+        cc.setVariable("_x", xVal);
+        cc.setVariable("_y", yVal);
+        cc.setVariable("_z", zVal);
+        cc.setVariable("_", defaultVal);
+        return sCount[0];
+    }
 }
@@ -455,7 +455,7 @@ public class Inventories
             return new NumericValue(item.getItem().getCount());
         });
 
-        expression.addContextFunction("create_screen", -1, (c, t, lv) ->
+        expression.addFunctionWithDelegation("create_screen", -1, false, false, (c, t, expr, tok, lv) ->
         {
             if (lv.size() < 3)
             {
@@ -472,7 +472,7 @@ public class Inventories
             FunctionValue function = null;
             if (lv.size() > 3)
             {
-                function = FunctionArgument.findIn(c, expression.module, lv, 3, true, false).function;
+                function = FunctionArgument.findIn(c, expr.module, lv, 3, true, false).function;
             }
 
             return new ScreenValue(player, type, name, function, c);
@@ -7,6 +7,7 @@ import carpet.script.ScriptHost;
 import carpet.script.exception.InternalExpressionException;
 import carpet.script.exception.ThrowStatement;
 import carpet.script.exception.Throwables;
+import carpet.script.utils.PathLocks;
 import carpet.script.value.MapValue;
 import carpet.script.value.StringValue;
 import carpet.script.value.Value;
@@ -26,18 +27,22 @@ import javax.annotation.Nullable;
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -46,6 +51,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -61,8 +67,6 @@ public class FileArgument
     private Path zipPath;
     private final ScriptHost host;
 
-    public static final Object writeIOSync = new Object();
-
     public void close()
     {
         if (zfs != null && zfs.isOpen())
@@ -272,12 +276,27 @@ public class FileArgument
     }
 
 
+    /**
+     * Runs the action holding the lock of the file, or the zip container it is in,
+     * so different files can be accessed at the same time, but not the same one
+     */
+    private <T> T withFileLock(@Nullable Module module, Supplier<T> action)
+    {
+        if (!isShared && module == null)
+        {
+            return action.get(); // no file to lock
+        }
+        String file = zipContainer != null
+                ? getDescriptor(module, zipContainer)
+                : getDescriptor(module, resource) + (isFolder ? "" : type.extension);
+        return PathLocks.withLock(resolve(file), action);
+    }
+
     public boolean findPathAndApply(Module module, Consumer<Path> action)
     {
         try
         {
-            synchronized (writeIOSync)
-            {
+            return withFileLock(module, () -> {
                 Path dataFile = toPath(module);//, resourceName, supportedTypes.get(type), isShared);
                 if (dataFile == null)
                 {
@@ -285,13 +304,13 @@ public class FileArgument
                 }
                 createPaths(dataFile);
                 action.accept(dataFile);
-            }
+                return true;
+            });
         }
         finally
         {
             close();
         }
-        return true;
     }
 
     @Nullable
@@ -322,8 +341,7 @@ public class FileArgument
         Stream<String> strings;
         try (Stream<Path> result = listFiles(module))
         {
-            synchronized (writeIOSync)
-            {
+            strings = withFileLock(module, () -> {
                 if (result == null)
                 {
                     return null;
@@ -335,9 +353,13 @@ public class FileArgument
                 }
                 String zipComponent = (zipContainer != null) ? rootPath.relativize(zipPath).toString() : null;
                 // need to evaluate the stream before exiting try-with-resources else there'll be no data to stream
-                strings = (zipContainer == null)
+                return (zipContainer == null)
                         ? result.map(p -> rootPath.relativize(p).toString().replaceAll("[\\\\/]+", "/")).toList().stream()
                         : result.map(p -> (zipComponent + '/' + p.toString()).replaceAll("[\\\\/]+", "/")).toList().stream();
+            });
+            if (strings == null)
+            {
+                return null;
             }
         }
         finally
@@ -369,20 +391,47 @@ public class FileArgument
         }
     }
 
+    /**
+     * @return path of the file to keep open for streaming, or null if there is no file to read
+     */
+    @Nullable
+    public Path getStreamingPath(Module module)
+    {
+        if (zipContainer != null)
+        {
+            throw new InternalExpressionException("Files in zip containers can't be kept open, use read_file and write_file instead");
+        }
+        return withFileLock(module, () -> {
+            Path dataFile = toPath(module);
+            if (dataFile == null)
+            {
+                return null;
+            }
+            if (reason == Reason.CREATE)
+            {
+                createPaths(dataFile);
+            }
+            else if (!Files.isRegularFile(dataFile))
+            {
+                return null;
+            }
+            return dataFile;
+        });
+    }
+
     public boolean appendToTextFile(Module module, List<String> message)
     {
         try
         {
-            synchronized (writeIOSync)
-            {
+            return withFileLock(module, () -> {
                 Path dataFile = toPath(module);
                 if (dataFile == null)
                 {
                     return false;
                 }
                 createPaths(dataFile);
-                OutputStream out = Files.newOutputStream(dataFile, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
-                try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))
+                try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                        Files.newOutputStream(dataFile, StandardOpenOption.APPEND, StandardOpenOption.CREATE), StandardCharsets.UTF_8)))
                 {
                     for (String line : message)
                     {
@@ -393,18 +442,18 @@ public class FileArgument
                         }
                     }
                 }
-            }
-        }
-        catch (IOException e)
-        {
-            CarpetScriptServer.LOG.warn("IOException when appending to text file", e);
-            throw new ThrowStatement("Error when writing to the file: " + e, Throwables.IO_EXCEPTION);
+                catch (IOException e)
+                {
+                    CarpetScriptServer.LOG.warn("IOException when appending to text file", e);
+                    throw new ThrowStatement("Error when writing to the file: " + e, Throwables.IO_EXCEPTION);
+                }
+                return true;
+            });
         }
         finally
         {
             close();
         }
-        return true;
     }
 
     @Nullable
@@ -412,15 +461,14 @@ public class FileArgument
     {
         try
         {
-            synchronized (writeIOSync)
-            {
+            return withFileLock(module, () -> {
                 Path dataFile = toPath(module);
                 if (dataFile == null || !Files.exists(dataFile))
                 {
                     return null;
                 }
                 return readTag(dataFile);
-            }
+            });
         }
         finally
         {
@@ -483,8 +531,7 @@ public class FileArgument
     {
         try
         {
-            synchronized (writeIOSync)
-            {
+            return withFileLock(module, () -> {
                 Path dataFile = toPath(module);
                 if (dataFile == null)
                 {
@@ -492,7 +539,7 @@ public class FileArgument
                 }
                 createPaths(dataFile);
                 return writeTagDisk(tag, dataFile, zipContainer != null);
-            }
+            });
         }
         finally
         {
@@ -501,24 +548,20 @@ public class FileArgument
     }
 
     //copied private method from net.minecraft.nbt.NbtIo.write() and client method safe_write
+    // serialized up front, so the file can be forced to disk before replacing the old one
     public static boolean writeTagDisk(Tag tag, Path path, boolean zipped)
     {
         Path original = path;
         try
         {
-            if (!zipped)
-            {
-                path = path.getParent().resolve(path.getFileName() + "_tmp");
-                Files.deleteIfExists(path);
-            }
-
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
             if (tag instanceof final CompoundTag cTag)
             {
-                NbtIo.writeCompressed(cTag, Files.newOutputStream(path));
+                NbtIo.writeCompressed(cTag, bytes);
             }
             else
             {
-                try (DataOutputStream dataOutputStream = new DataOutputStream(Files.newOutputStream(path)))
+                try (DataOutputStream dataOutputStream = new DataOutputStream(bytes))
                 {
                     dataOutputStream.writeByte(tag.getId());
                     if (tag.getId() != 0)
@@ -528,10 +571,24 @@ public class FileArgument
                     }
                 }
             }
-            if (!zipped)
+            if (zipped)
+            {
+                Files.write(path, bytes.toByteArray());
+                return true;
+            }
+            path = path.getParent().resolve(path.getFileName() + "_tmp");
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
             {
-                Files.deleteIfExists(original);
-                Files.move(path, original);
+                channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+                channel.force(true);
+            }
+            try
+            {
+                Files.move(path, original, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException ignored)
+            {
+                Files.move(path, original, StandardCopyOption.REPLACE_EXISTING);
             }
             return true;
         }
@@ -546,20 +603,22 @@ public class FileArgument
     {
         try
         {
-            synchronized (writeIOSync)
-            {
+            return withFileLock(module, () -> {
                 Path dataFile = toPath(module);
                 if (dataFile == null)
                 {
                     return false;
                 }
-                return Files.deleteIfExists(dataFile);
-            }
-        }
-        catch (IOException e)
-        {
-            CarpetScriptServer.LOG.warn("IOException when removing file", e);
-            throw new ThrowStatement("Error while removing file: " + getDisplayPath(), Throwables.IO_EXCEPTION);
+                try
+                {
+                    return Files.deleteIfExists(dataFile);
+                }
+                catch (IOException e)
+                {
+                    CarpetScriptServer.LOG.warn("IOException when removing file", e);
+                    throw new ThrowStatement("Error while removing file: " + getDisplayPath(), Throwables.IO_EXCEPTION);
+                }
+            });
         }
         finally
         {
@@ -572,8 +631,7 @@ public class FileArgument
     {
         try
         {
-            synchronized (writeIOSync)
-            {
+            return withFileLock(module, () -> {
                 Path dataFile = toPath(module);
                 if (dataFile == null)
                 {
@@ -584,7 +642,7 @@ public class FileArgument
                     return null;
                 }
                 return listFileContent(dataFile);
-            }
+            });
         }
         finally
         {
@@ -620,15 +678,14 @@ public class FileArgument
     {
         try
         {
-            synchronized (writeIOSync)
-            {
+            return withFileLock(module, () -> {
                 Path dataFile = toPath(module);
                 if (dataFile == null || !Files.exists(dataFile))
                 {
                     return null;
                 }
                 return readJsonContent(dataFile);
-            }
+            });
         }
         finally
         {
@@ -114,6 +114,8 @@ import static net.minecraft.commands.Commands.argument;
 
 public abstract class CommandArgument
 {
+    private static final int SCARPET_COMMAND = Carpet.profilerSection("Scarpet command");
+
     public static CommandSyntaxException error(String text)
     {
         return new SimpleCommandExceptionType(Component.literal(text)).create();
@@ -430,7 +432,7 @@ public abstract class CommandArgument
     {
         if (customSuggester != null)
         {
-            Runnable currentSection = Carpet.startProfilerSection("Scarpet command");
+            long currentSection = Carpet.startProfilerSection();
             Map<Value, Value> params = new HashMap<>();
             for (ParsedCommandNode<CommandSourceStack> pnode : context.getNodes())
             {
@@ -449,7 +451,7 @@ public abstract class CommandArgument
                 throw error("Custom suggester should return a list of options" + " for custom type " + suffix);
             }
             Collection<String> res = ((ListValue) response).getItems().stream().map(Value::getString).collect(Collectors.toList());
-            currentSection.run();
+            Carpet.endProfilerSection(SCARPET_COMMAND, currentSection);
             return res;
         }
         return needsMatching ? examples : Collections.singletonList("... " + getTypeSuffix());
@@ -6,7 +6,9 @@ import carpet.api.settings.CarpetRule;
 import carpet.api.settings.RuleHelper;
 import carpet.api.settings.SettingsManager;
 import carpet.fakes.MinecraftServerInterface;
+import carpet.helpers.ParallelWarp;
 import carpet.logging.HUDController;
+import carpet.logging.logHelpers.PacketCounter;
 import carpet.network.ServerNetworkHandler;
 import carpet.patches.EntityPlayerMPFake;
 import carpet.script.CarpetEventServer;
@@ -16,8 +18,12 @@ import carpet.script.CarpetScriptServer;
 import carpet.script.Module;
 import carpet.script.exception.InternalExpressionException;
 import carpet.script.exception.LoadException;
+import carpet.script.value.ListValue;
 import carpet.script.value.MapValue;
+import carpet.script.value.NumericValue;
 import carpet.script.value.StringValue;
+import carpet.script.value.Value;
+import carpet.script.value.ValueConversions;
 import carpet.utils.CarpetProfiler;
 import carpet.utils.Messenger;
 import net.fabricmc.api.EnvType;
@@ -32,6 +38,7 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.ChunkPos;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
@@ -41,6 +48,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -79,10 +87,40 @@ public class Carpet
         return CarpetSettings.impendingFillSkipUpdates;
     }
 
-    public static Runnable startProfilerSection(String name)
+    /**
+     * @return id of a profiler section, resolve it once and keep it
+     */
+    public static int profilerSection(String name)
     {
-        CarpetProfiler.ProfilerToken token = CarpetProfiler.start_section(null, name, CarpetProfiler.TYPE.GENERAL);
-        return () -> CarpetProfiler.end_current_section(token);
+        return CarpetProfiler.sectionId(name);
+    }
+
+    public static long startProfilerSection()
+    {
+        return CarpetProfiler.start_section();
+    }
+
+    public static void endProfilerSection(int section, long start)
+    {
+        CarpetProfiler.end_section(section, start);
+    }
+
+    /**
+     * @return whether the lock was taken, because dimensions are ticking on separate threads
+     */
+    public static boolean lockScriptsForParallelTick()
+    {
+        return ParallelWarp.lockShared();
+    }
+
+    public static void unlockScriptsForParallelTick()
+    {
+        ParallelWarp.unlockShared();
+    }
+
+    public static void recordProfilerCount(String section, long calls, long queued)
+    {
+        CarpetProfiler.record_section_calls(section, calls, queued);
     }
 
     public static void MinecraftServer_addScriptServer(MinecraftServer server, CarpetScriptServer scriptServer)
@@ -116,6 +154,47 @@ public class Carpet
         return carpetRules;
     }
 
+    public static MapValue getPacketStats()
+    {
+        Map<Value, Value> stats = new HashMap<>();
+        for (PacketCounter.Direction direction : PacketCounter.Direction.values())
+        {
+            Map<Value, Value> types = new HashMap<>();
+            PacketCounter.byType(direction).forEach((type, counter) -> types.put(StringValue.of(type), packetCounterStats(counter)));
+            Map<Value, Value> players = new HashMap<>();
+            PacketCounter.byPlayer(direction).forEach((player, counter) -> players.put(StringValue.of(player), packetCounterStats(counter)));
+            MapValue directionStats = packetCounterStats(PacketCounter.total(direction));
+            directionStats.put(StringValue.of("types"), MapValue.wrap(types));
+            directionStats.put(StringValue.of("players"), MapValue.wrap(players));
+            stats.put(StringValue.of(direction.name().toLowerCase(Locale.ROOT)), directionStats);
+        }
+        return MapValue.wrap(stats);
+    }
+
+    public static MapValue getChunkTimes()
+    {
+        Map<Value, Value> dimensions = new HashMap<>();
+        CarpetProfiler.getLastChunkTimes().forEach((dim, times) -> {
+            Map<Value, Value> chunks = new HashMap<>();
+            times.long2DoubleEntrySet().forEach(chunk -> chunks.put(
+                    ListValue.of(NumericValue.of(ChunkPos.getX(chunk.getLongKey())), NumericValue.of(ChunkPos.getZ(chunk.getLongKey()))),
+                    new NumericValue(chunk.getDoubleValue())
+            ));
+            dimensions.put(ValueConversions.of(dim), MapValue.wrap(chunks));
+        });
+        return MapValue.wrap(dimensions);
+    }
+
+    private static MapValue packetCounterStats(PacketCounter.Counter counter)
+    {
+        Map<Value, Value> stats = new HashMap<>();
+        stats.put(StringValue.of("packets"), NumericValue.of(counter.packets()));
+        stats.put(StringValue.of("bytes"), NumericValue.of(counter.bytes()));
+        stats.put(StringValue.of("packets_per_second"), new NumericValue(counter.packetRate()));
+        stats.put(StringValue.of("bytes_per_second"), new NumericValue(counter.byteRate()));
+        return MapValue.wrap(stats);
+    }
+
     public static String getCarpetVersion()
     {
         return CarpetSettings.carpetVersion;
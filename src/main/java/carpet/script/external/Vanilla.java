@@ -178,6 +178,16 @@ public class Vanilla
         ServerNetworkHandler.sendCustomCommand(player, "scShapes", data);
     }
 
+    public static void sendScarpetShapesDataToPlayer(ServerPlayer player, String command, Tag data)
+    {
+        ServerNetworkHandler.sendCustomCommand(player, command, data);
+    }
+
+    public static boolean hasScarpetShapeCache(ServerPlayer player)
+    {
+        return ServerNetworkHandler.hasShapeCache(player);
+    }
+
     public static int MinecraftServer_getRunPermissionLevel(MinecraftServer server)
     {
         return CarpetSettings.runPermissionLevel;
@@ -283,6 +293,16 @@ public class Vanilla
         ((EntityInterface) entity).setPublicNetherPortalCooldown(what);
     }
 
+    public static CompoundTag Entity_getNbtSnapshot(Entity entity)
+    {
+        return ((EntityInterface) entity).getNbtSnapshot();
+    }
+
+    public static void Entity_invalidateNbtSnapshot(Entity entity)
+    {
+        ((EntityInterface) entity).invalidateNbtSnapshot();
+    }
+
     public static int ItemEntity_getPickupDelay(ItemEntity entity)
     {
         return ((ItemEntityInterface) entity).getPickupDelayCM();
@@ -328,6 +348,11 @@ public class Vanilla
         return CarpetSettings.scriptsOptimization;
     }
 
+    public static int ScriptServer_taskThreadLimit(MinecraftServer server)
+    {
+        return CarpetSettings.scriptsTaskThreadLimit;
+    }
+
     public static boolean ScriptServer_scriptDebugging(MinecraftServer server)
     {
         return CarpetSettings.scriptsDebugging;
@@ -1,6 +1,7 @@
 package carpet.script.external;
 
 import carpet.mixins.ShulkerBoxAccessMixin;
+import carpet.network.ClientNetworkHandler;
 import net.minecraft.client.model.ShulkerModel;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderer;
 import net.minecraft.world.level.block.entity.ShulkerBoxBlockEntity;
@@ -10,4 +11,9 @@ public class VanillaClient
     public static ShulkerModel<?> ShulkerBoxRenderer_model(BlockEntityRenderer<ShulkerBoxBlockEntity> shulkerBoxRenderer) {
         return ((ShulkerBoxAccessMixin)shulkerBoxRenderer).getModel();
     }
+
+    public static void sendShapeCacheReset()
+    {
+        ClientNetworkHandler.shapeCacheReset();
+    }
 }
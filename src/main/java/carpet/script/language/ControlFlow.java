@@ -24,7 +24,12 @@ public class ControlFlow
         // needs to be lazy cause of custom contextualization
         expression.addLazyBinaryOperator(";", Operators.precedence.get("nextop;"), true, true, t -> Context.Type.VOID, (c, t, lv1, lv2) ->
         {
-            lv1.evalValue(c, Context.VOID);
+            Value v1 = lv1.evalValue(c, Context.VOID);
+            // return, break or continue signalled by the first statement skip the rest
+            if (c.isSignalled())
+            {
+                return (cc, tt) -> v1;
+            }
             Value v2 = lv2.evalValue(c, t);
             return (cc, tt) -> v2;
         });
@@ -33,7 +38,11 @@ public class ControlFlow
             int imax = lv.size() - 1;
             for (int i = 0; i < imax; i++)
             {
-                lv.get(i).evalValue(c, Context.VOID);
+                Value v = lv.get(i).evalValue(c, Context.VOID);
+                if (c.isSignalled())
+                {
+                    return (cc, tt) -> v;
+                }
             }
             Value v = lv.get(imax).evalValue(c, t);
             return (cc, tt) -> v;
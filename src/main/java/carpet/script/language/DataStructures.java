@@ -127,10 +127,11 @@ public class DataStructures
             LazyValue sortKey = lv.get(1);
             //scoping
             LazyValue defaultVal = c.getVariable("_");
+            LazyValue.Slot defaultSlot = new LazyValue.Slot("_");
             toSort.sort((v1, v2) -> {
-                c.setVariable("_", (cc, tt) -> v1);
+                c.setVariable("_", defaultSlot.set(v1));
                 Value ev1 = sortKey.evalValue(c);
-                c.setVariable("_", (cc, tt) -> v2);
+                c.setVariable("_", defaultSlot.set(v2));
                 Value ev2 = sortKey.evalValue(c);
                 return ev1.compareTo(ev2);
             });
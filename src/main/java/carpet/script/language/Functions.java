@@ -24,7 +24,7 @@ public class Functions
     public static void apply(Expression expression) // public just to get the javadoc right
     {
         // artificial construct to handle user defined functions and function definitions
-        expression.addContextFunction("import", -1, (c, t, lv) ->
+        expression.addFunctionWithDelegation("import", -1, false, false, (c, t, expr, tok, lv) ->
         {
             if (lv.size() < 1)
             {
@@ -35,7 +35,7 @@ public class Functions
             moduleName = moduleName.toLowerCase(Locale.ROOT);
             if (lv.size() > 1)
             {
-                c.host.importNames(c, expression.module, moduleName, lv.subList(1, lv.size()).stream().map(Value::getString).toList());
+                c.host.importNames(c, expr.module, moduleName, lv.subList(1, lv.size()).stream().map(Value::getString).toList());
             }
             return t == Context.VOID ? Value.NULL : ListValue.wrap(c.host.availableImports(moduleName).map(StringValue::new));
         });
@@ -55,7 +55,7 @@ public class Functions
                 if (t != Context.SIGNATURE) // just call the function
                 {
                     List<Value> args = Fluff.AbstractFunction.unpackLazy(lv, c, Context.NONE);
-                    FunctionArgument functionArgument = FunctionArgument.findIn(c, expression.module, args, 0, false, true);
+                    FunctionArgument functionArgument = FunctionArgument.findIn(c, expr.module, args, 0, false, true);
                     FunctionValue fun = functionArgument.function;
                     return fun.callInContext(c, t, functionArgument.args);
                 }
@@ -138,7 +138,7 @@ public class Functions
             {
                 throw new InternalExpressionException("'->' operator requires a function signature on the LHS");
             }
-            Value result = expression.createUserDefinedFunction(c, sign.identifier(), e, t, sign.arguments(), sign.varArgs(), sign.globals(), lv2);
+            Value result = e.createUserDefinedFunction(c, sign.identifier(), e, t, sign.arguments(), sign.varArgs(), sign.globals(), lv2);
             return (cc, tt) -> result;
         });
 
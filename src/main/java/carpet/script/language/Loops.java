@@ -11,12 +11,45 @@ import carpet.script.value.ListValue;
 import carpet.script.value.NumericValue;
 import carpet.script.value.Value;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 public class Loops
 {
+    /**
+     * Outcome of one run of a loop body, whether it finished, or called break or continue,
+     * either signalled through the context or thrown. Reused across the iterations of a loop.
+     */
+    private static final class Step
+    {
+        // value of the body, or the one passed to break or continue, null if they were called without one
+        @Nullable
+        private Value value;
+        private boolean stop;
+
+        private Step run(Context c, Context.Type t, LazyValue body)
+        {
+            stop = false;
+            try
+            {
+                value = body.evalValue(c, t);
+                if (c.isSignalled())
+                {
+                    stop = c.takeSignal() == Context.Signal.BREAK;
+                    value = c.signalValue();
+                }
+            }
+            catch (BreakStatement | ContinueStatement stmt)
+            {
+                value = stmt.retval;
+                stop = stmt instanceof BreakStatement;
+            }
+            return this;
+        }
+    }
+
     public static void apply(Expression expression)
     {
         // condition and expression will get a bound '_i'
@@ -58,27 +91,22 @@ public class Loops
                 Value lastOne = Value.NULL;
                 //scoping
                 LazyValue defaultVal = c.getVariable("_");
-                c.setVariable("_", (cc, tt) -> new NumericValue(0).bindTo("_"));
+                LazyValue.Slot iterSlot = new LazyValue.Slot("_", 0);
+                c.setVariable("_", iterSlot);
+                Step step = new Step();
                 while (condition.evalValue(c, Context.BOOLEAN).getBoolean())
                 {
-                    try
+                    step.run(c, t, expr);
+                    if (step.value != null)
                     {
-                        lastOne = expr.evalValue(c, t);
+                        lastOne = step.value;
                     }
-                    catch (BreakStatement | ContinueStatement stmt)
+                    if (step.stop)
                     {
-                        if (stmt.retval != null)
-                        {
-                            lastOne = stmt.retval;
-                        }
-                        if (stmt instanceof BreakStatement)
-                        {
-                            break;
-                        }
+                        break;
                     }
                     i++;
-                    long seriously = i;
-                    c.setVariable("_", (cc, tt) -> new NumericValue(seriously).bindTo("_"));
+                    c.setVariable("_", iterSlot.set(i));
                 }
                 //revering scope
                 c.setVariable("_", defaultVal);
@@ -92,27 +120,22 @@ public class Loops
             Value lastOne = Value.NULL;
             //scoping
             LazyValue defaultVal = c.getVariable("_");
-            c.setVariable("_", (cc, tt) -> new NumericValue(0).bindTo("_"));
+            LazyValue.Slot iterSlot = new LazyValue.Slot("_", 0);
+            c.setVariable("_", iterSlot);
+            Step step = new Step();
             while (i < limit && condition.evalValue(c, Context.BOOLEAN).getBoolean())
             {
-                try
+                step.run(c, t, expr);
+                if (step.value != null)
                 {
-                    lastOne = expr.evalValue(c, t);
+                    lastOne = step.value;
                 }
-                catch (BreakStatement | ContinueStatement stmt)
+                if (step.stop)
                 {
-                    if (stmt.retval != null)
-                    {
-                        lastOne = stmt.retval;
-                    }
-                    if (stmt instanceof BreakStatement)
-                    {
-                        break;
-                    }
+                    break;
                 }
                 i++;
-                long seriously = i;
-                c.setVariable("_", (cc, tt) -> new NumericValue(seriously).bindTo("_"));
+                c.setVariable("_", iterSlot.set(i));
             }
             //revering scope
             c.setVariable("_", defaultVal);
@@ -129,24 +152,19 @@ public class Loops
             LazyValue expr = lv.get(1);
             //scoping
             LazyValue defaultVal = c.getVariable("_");
+            LazyValue.Slot iterSlot = new LazyValue.Slot("_");
+            Step step = new Step();
             for (long i = 0; i < limit; i++)
             {
-                long whyYouAsk = i;
-                c.setVariable("_", (cc, tt) -> new NumericValue(whyYouAsk).bindTo("_"));
-                try
+                c.setVariable("_", iterSlot.set(i));
+                step.run(c, t, expr);
+                if (step.value != null)
                 {
-                    lastOne = expr.evalValue(c, t);
+                    lastOne = step.value;
                 }
-                catch (BreakStatement | ContinueStatement stmt)
+                if (step.stop)
                 {
-                    if (stmt.retval != null)
-                    {
-                        lastOne = stmt.retval;
-                    }
-                    if (stmt instanceof BreakStatement)
-                    {
-                        break;
-                    }
+                    break;
                 }
             }
             //revering scope
@@ -173,7 +191,10 @@ public class Loops
             //scoping
             LazyValue defaultVal = c.getVariable("_");
             LazyValue iterVal = c.getVariable("_i");
+            LazyValue.Slot defaultSlot = new LazyValue.Slot("_");
+            LazyValue.Slot iterSlot = new LazyValue.Slot("_i");
             List<Value> result = new ArrayList<>();
+            Step step = new Step();
             for (int i = 0; iterator.hasNext(); i++)
             {
                 Value next = iterator.next();
@@ -182,26 +203,18 @@ public class Loops
                 }
                 String variable = next.boundVariable;
                 next.bindTo("_");
-                int doYouReally = i;
-                c.setVariable("_", (cc, tt) -> next);
-                c.setVariable("_i", (cc, tt) -> new NumericValue(doYouReally).bindTo("_i"));
-                try
+                c.setVariable("_", defaultSlot.set(next));
+                c.setVariable("_i", iterSlot.set(i));
+                step.run(c, t, expr);
+                if (step.value != null)
                 {
-                    result.add(expr.evalValue(c, t));
+                    result.add(step.value);
                 }
-                catch (BreakStatement | ContinueStatement stmt)
+                next.boundVariable = variable;
+                if (step.stop)
                 {
-                    if (stmt.retval != null)
-                    {
-                        result.add(stmt.retval);
-                    }
-                    if (stmt instanceof BreakStatement)
-                    {
-                        next.boundVariable = variable;
-                        break;
-                    }
+                    break;
                 }
-                next.boundVariable = variable;
             }
             ((AbstractListValue) rval).fatality();
             Value ret = ListValue.wrap(result);
@@ -230,7 +243,10 @@ public class Loops
             //scoping
             LazyValue defaultVal = c.getVariable("_");
             LazyValue iterVal = c.getVariable("_i");
+            LazyValue.Slot defaultSlot = new LazyValue.Slot("_");
+            LazyValue.Slot iterSlot = new LazyValue.Slot("_i");
             List<Value> result = new ArrayList<>();
+            Step step = new Step();
             for (int i = 0; iterator.hasNext(); i++)
             {
                 Value next = iterator.next();
@@ -239,29 +255,18 @@ public class Loops
                 }
                 String veriable = next.boundVariable;
                 next.bindTo("_");
-                int seriously = i;
-                c.setVariable("_", (cc, tt) -> next);
-                c.setVariable("_i", (cc, tt) -> new NumericValue(seriously).bindTo("_i"));
-                try
+                c.setVariable("_", defaultSlot.set(next));
+                c.setVariable("_i", iterSlot.set(i));
+                step.run(c, Context.BOOLEAN, expr);
+                if (step.value != null && step.value.getBoolean())
                 {
-                    if (expr.evalValue(c, Context.BOOLEAN).getBoolean())
-                    {
-                        result.add(next);
-                    }
+                    result.add(next);
                 }
-                catch (BreakStatement | ContinueStatement stmt)
+                next.boundVariable = veriable;
+                if (step.stop)
                 {
-                    if (stmt.retval != null && stmt.retval.getBoolean())
-                    {
-                        result.add(next);
-                    }
-                    if (stmt instanceof BreakStatement)
-                    {
-                        next.boundVariable = veriable;
-                        break;
-                    }
+                    break;
                 }
-                next.boundVariable = veriable;
             }
             ((AbstractListValue) rval).fatality();
             Value ret = ListValue.wrap(result);
@@ -290,6 +295,8 @@ public class Loops
             //scoping
             LazyValue defaultVal = c.getVariable("_");
             LazyValue iterVal = c.getVariable("_i");
+            LazyValue.Slot defaultSlot = new LazyValue.Slot("_");
+            LazyValue.Slot iterSlot = new LazyValue.Slot("_i");
             Value result = Value.NULL;
             for (int i = 0; iterator.hasNext(); i++)
             {
@@ -299,9 +306,8 @@ public class Loops
                 }
                 String variable = next.boundVariable;
                 next.bindTo("_");
-                int seriously = i;
-                c.setVariable("_", (cc, tt) -> next);
-                c.setVariable("_i", (cc, tt) -> new NumericValue(seriously).bindTo("_i"));
+                c.setVariable("_", defaultSlot.set(next));
+                c.setVariable("_i", iterSlot.set(i));
                 try
                 {
                     if (expr.evalValue(c, Context.BOOLEAN).getBoolean())
@@ -350,6 +356,8 @@ public class Loops
             //scoping
             LazyValue defaultVal = c.getVariable("_");
             LazyValue iterVal = c.getVariable("_i");
+            LazyValue.Slot defaultSlot = new LazyValue.Slot("_");
+            LazyValue.Slot iterSlot = new LazyValue.Slot("_i");
             LazyValue result = LazyValue.TRUE;
             for (int i = 0; iterator.hasNext(); i++)
             {
@@ -359,9 +367,8 @@ public class Loops
                 }
                 String variable = next.boundVariable;
                 next.bindTo("_");
-                int seriously = i;
-                c.setVariable("_", (cc, tt) -> next);
-                c.setVariable("_i", (cc, tt) -> new NumericValue(seriously).bindTo("_i"));
+                c.setVariable("_", defaultSlot.set(next));
+                c.setVariable("_i", iterSlot.set(i));
                 if (!expr.evalValue(c, Context.BOOLEAN).getBoolean())
                 {
                     result = LazyValue.FALSE;
@@ -385,19 +392,13 @@ public class Loops
             LazyValue increment = lv.get(2);
             LazyValue body = lv.get(3);
             int iterations = 0;
+            Step step = new Step();
             for (initial.evalValue(c, Context.VOID); condition.evalValue(c, Context.BOOLEAN).getBoolean(); increment.evalValue(c, Context.VOID))
             {
-                try
-                {
-                    body.evalValue(c, Context.VOID);
-                }
-                catch (BreakStatement stmt)
+                if (step.run(c, Context.VOID, body).stop)
                 {
                     break;
                 }
-                catch (ContinueStatement ignored)
-                {
-                }
                 iterations++;
             }
             int finalIterations = iterations;
@@ -423,7 +424,10 @@ public class Loops
             //scoping
             LazyValue defaultVal = c.getVariable("_");
             LazyValue iterVal = c.getVariable("_i");
+            LazyValue.Slot defaultSlot = new LazyValue.Slot("_");
+            LazyValue.Slot iterSlot = new LazyValue.Slot("_i");
             int successCount = 0;
+            Step step = new Step();
             for (int i = 0; iterator.hasNext(); i++)
             {
                 Value next = iterator.next();
@@ -432,31 +436,18 @@ public class Loops
                 }
                 String variable = next.boundVariable;
                 next.bindTo("_");
-                int seriously = i;
-                c.setVariable("_", (cc, tt) -> next);
-                c.setVariable("_i", (cc, tt) -> new NumericValue(seriously).bindTo("_i"));
-                Value result = Value.FALSE;
-                try
-                {
-                    result = expr.evalValue(c, t);
-                }
-                catch (BreakStatement | ContinueStatement stmt)
+                c.setVariable("_", defaultSlot.set(next));
+                c.setVariable("_i", iterSlot.set(i));
+                step.run(c, t, expr);
+                next.boundVariable = variable;
+                if (step.stop)
                 {
-                    if (stmt.retval != null)
-                    {
-                        result = stmt.retval;
-                    }
-                    if (stmt instanceof BreakStatement)
-                    {
-                        next.boundVariable = variable;
-                        break;
-                    }
+                    break;
                 }
-                if (t != Context.VOID && result.getBoolean())
+                if (t != Context.VOID && step.value != null && step.value.getBoolean())
                 {
                     successCount++;
                 }
-                next.boundVariable = variable;
             }
             //revering scope
             ((AbstractListValue) rval).fatality();
@@ -497,6 +488,10 @@ public class Loops
             LazyValue defaultVal = c.getVariable("_");
             LazyValue accumulatorVal = c.getVariable("_a");
             LazyValue iterVal = c.getVariable("_i");
+            LazyValue.Slot defaultSlot = new LazyValue.Slot("_");
+            LazyValue.Slot iterSlot = new LazyValue.Slot("_i");
+            LazyValue.Slot accumulatorSlot = new LazyValue.Slot("_a");
+            Step step = new Step();
 
             for (int i = 0; iterator.hasNext(); i++)
             {
@@ -506,28 +501,19 @@ public class Loops
                 }
                 String variable = next.boundVariable;
                 next.bindTo("_");
-                Value promiseWontChangeYou = acc;
-                int seriously = i;
-                c.setVariable("_a", (cc, tt) -> promiseWontChangeYou.bindTo("_a"));
-                c.setVariable("_", (cc, tt) -> next);
-                c.setVariable("_i", (cc, tt) -> new NumericValue(seriously).bindTo("_i"));
-                try
+                c.setVariable("_a", accumulatorSlot.set(acc.bindTo("_a")));
+                c.setVariable("_", defaultSlot.set(next));
+                c.setVariable("_i", iterSlot.set(i));
+                step.run(c, t, expr);
+                if (step.value != null)
                 {
-                    acc = expr.evalValue(c, t);
+                    acc = step.value;
                 }
-                catch (BreakStatement | ContinueStatement stmt)
+                next.boundVariable = variable;
+                if (step.stop)
                 {
-                    if (stmt.retval != null)
-                    {
-                        acc = stmt.retval;
-                    }
-                    if (stmt instanceof BreakStatement)
-                    {
-                        next.boundVariable = variable;
-                        break;
-                    }
+                    break;
                 }
-                next.boundVariable = variable;
             }
             //reverting scope
             ((AbstractListValue) rval).fatality();
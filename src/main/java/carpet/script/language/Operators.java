@@ -17,7 +17,6 @@ import carpet.script.value.Value;
 
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -370,7 +369,7 @@ public class Operators
         expression.addFunctionalEquivalence("!=", "unique");
 
         // lazy cause of assignment which is non-trivial
-        expression.addLazyBinaryOperator("=", precedence.get("assign=<>"), false, false, t -> Context.Type.LVALUE, (c, t, lv1, lv2) ->
+        expression.addLazyBinaryOperatorWithDelegation("=", precedence.get("assign=<>"), false, false, t -> Context.Type.LVALUE, (c, t, e, tok, lv1, lv2) ->
         {
             Value v1 = lv1.evalValue(c, Context.LVALUE);
             Value v2 = lv2.evalValue(c);
@@ -390,13 +389,11 @@ public class Operators
                 {
                     v.assertAssignable();
                 }
-                Iterator<Value> li = ll.iterator();
-                Iterator<Value> ri = rl.iterator();
-                while (li.hasNext())
+                for (int i = 0; i < ll.size(); i++)
                 {
-                    String lname = li.next().getVariable();
-                    Value vval = ri.next().reboundedTo(lname);
-                    expression.setAnyVariable(c, lname, (cc, tt) -> vval);
+                    String lname = ll.get(i).getVariable();
+                    Value vval = rl.get(i).reboundedTo(lname);
+                    e.setVariable(c, e.listItem(lv1, i), lname, (cc, tt) -> vval);
                 }
                 return (cc, tt) -> Value.TRUE;
             }
@@ -418,12 +415,12 @@ public class Operators
             String varname = v1.getVariable();
             Value copy = v2.reboundedTo(varname);
             LazyValue boundedLHS = (cc, tt) -> copy;
-            expression.setAnyVariable(c, varname, boundedLHS);
+            e.setVariable(c, lv1, varname, boundedLHS);
             return boundedLHS;
         });
 
         // lazy due to assignment
-        expression.addLazyBinaryOperator("+=", precedence.get("assign=<>"), false, false, t -> Context.Type.LVALUE, (c, t, lv1, lv2) ->
+        expression.addLazyBinaryOperatorWithDelegation("+=", precedence.get("assign=<>"), false, false, t -> Context.Type.LVALUE, (c, t, e, tok, lv1, lv2) ->
         {
             Value v1 = lv1.evalValue(c, Context.LVALUE);
             Value v2 = lv2.evalValue(c);
@@ -443,14 +440,12 @@ public class Operators
                 {
                     v.assertAssignable();
                 }
-                Iterator<Value> li = ll.iterator();
-                Iterator<Value> ri = rl.iterator();
-                while (li.hasNext())
+                for (int i = 0; i < ll.size(); i++)
                 {
-                    Value lval = li.next();
+                    Value lval = ll.get(i);
                     String lname = lval.getVariable();
-                    Value result = lval.add(ri.next()).bindTo(lname);
-                    expression.setAnyVariable(c, lname, (cc, tt) -> result);
+                    Value result = lval.add(rl.get(i)).bindTo(lname);
+                    e.setVariable(c, e.listItem(lv1, i), lname, (cc, tt) -> result);
                 }
                 return (cc, tt) -> Value.TRUE;
             }
@@ -488,12 +483,14 @@ public class Operators
                 Value result = v1.add(v2).bindTo(varname);
                 boundedLHS = (cc, tt) -> result;
             }
-            expression.setAnyVariable(c, varname, boundedLHS);
+            e.setVariable(c, lv1, varname, boundedLHS);
             return boundedLHS;
         });
 
-        expression.addBinaryContextOperator("<>", precedence.get("assign=<>"), false, false, false, (c, t, v1, v2) ->
+        expression.addLazyBinaryOperatorWithDelegation("<>", precedence.get("assign=<>"), false, false, (c, t, e, tok, lv1, lv2) ->
         {
+            Value v1 = lv1.evalValue(c, Context.NONE);
+            Value v2 = lv2.evalValue(c, Context.NONE);
             if (v1 instanceof final ListValue.ListConstructorValue lcv1 && v2 instanceof final ListValue.ListConstructorValue lcv2)
             {
                 List<Value> ll = lcv1.getItems();
@@ -514,20 +511,18 @@ public class Operators
                 {
                     v.assertAssignable();
                 }
-                Iterator<Value> li = ll.iterator();
-                Iterator<Value> ri = rl.iterator();
-                while (li.hasNext())
+                for (int i = 0; i < ll.size(); i++)
                 {
-                    Value lval = li.next();
-                    Value rval = ri.next();
+                    Value lval = ll.get(i);
+                    Value rval = rl.get(i);
                     String lname = lval.getVariable();
                     String rname = rval.getVariable();
                     lval.reboundedTo(rname);
                     rval.reboundedTo(lname);
-                    expression.setAnyVariable(c, lname, (cc, tt) -> rval);
-                    expression.setAnyVariable(c, rname, (cc, tt) -> lval);
+                    e.setVariable(c, e.listItem(lv1, i), lname, (cc, tt) -> rval);
+                    e.setVariable(c, e.listItem(lv2, i), rname, (cc, tt) -> lval);
                 }
-                return Value.TRUE;
+                return (cc, tt) -> Value.TRUE;
             }
             v1.assertAssignable();
             v2.assertAssignable();
@@ -535,9 +530,9 @@ public class Operators
             String rvalvar = v2.getVariable();
             Value lval = v2.reboundedTo(lvalvar);
             Value rval = v1.reboundedTo(rvalvar);
-            expression.setAnyVariable(c, lvalvar, (cc, tt) -> lval);
-            expression.setAnyVariable(c, rvalvar, (cc, tt) -> rval);
-            return lval;
+            e.setVariable(c, lv1, lvalvar, (cc, tt) -> lval);
+            e.setVariable(c, lv2, rvalvar, (cc, tt) -> rval);
+            return (cc, tt) -> lval;
         });
 
         expression.addUnaryOperator("-", false, v -> NumericValue.asNumber(v).opposite());
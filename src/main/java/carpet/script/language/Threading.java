@@ -2,6 +2,7 @@ package carpet.script.language;
 
 import carpet.script.Context;
 import carpet.script.Expression;
+import carpet.script.LazyValue;
 import carpet.script.argument.FunctionArgument;
 import carpet.script.exception.ExitStatement;
 import carpet.script.exception.InternalExpressionException;
@@ -10,6 +11,8 @@ import carpet.script.value.NumericValue;
 import carpet.script.value.ThreadValue;
 import carpet.script.value.Value;
 
+import java.util.List;
+
 public class Threading
 {
     public static void apply(Expression expression)
@@ -20,7 +23,7 @@ public class Threading
             {
                 throw new InternalExpressionException("'task' requires at least function to call as a parameter");
             }
-            FunctionArgument functionArgument = FunctionArgument.findIn(c, expression.module, lv, 0, false, true);
+            FunctionArgument functionArgument = FunctionArgument.findIn(c, expr.module, lv, 0, false, true);
             ThreadValue thread = new ThreadValue(Value.NULL, functionArgument.function, expr, tok, c, functionArgument.checkedArgs());
             Thread.yield();
             return thread;
@@ -33,7 +36,7 @@ public class Threading
                 throw new InternalExpressionException("'task' requires at least function to call as a parameter");
             }
             Value queue = lv.get(0);
-            FunctionArgument functionArgument = FunctionArgument.findIn(c, expression.module, lv, 1, false, true);
+            FunctionArgument functionArgument = FunctionArgument.findIn(c, expr.module, lv, 1, false, true);
             ThreadValue thread = new ThreadValue(queue, functionArgument.function, expr, tok, c, functionArgument.checkedArgs());
             Thread.yield();
             return thread;
@@ -90,13 +93,15 @@ public class Threading
                 lockValue = lv.get(0).evalValue(c);
                 ind = 1;
             }
-            synchronized (c.host.getLock(lockValue))
-            {
-                Value ret = lv.get(ind).evalValue(c, t);
-                return (ct, tt) -> ret;
-            }
+            LazyValue expr = lv.get(ind);
+            Value ret = c.host.getLocks().withLock(lockValue, true, -1, () -> expr.evalValue(c, t), () -> Value.NULL);
+            return (ct, tt) -> ret;
         });
 
+        expression.addLazyFunction("synchronize_read", -1, (c, t, lv) -> synchronizeWithTimeout("synchronize_read", false, c, t, lv));
+
+        expression.addLazyFunction("synchronize_write", -1, (c, t, lv) -> synchronizeWithTimeout("synchronize_write", true, c, t, lv));
+
         // lazy since exception expression is very conditional
         expression.addLazyFunction("sleep", (c, t, lv) ->
         {
@@ -188,4 +193,21 @@ public class Threading
             return (cc, tt) -> BooleanValue.of(ret);
         });
     }
+
+    // synchronize_read/write(lock, expr, timeout?, timeout_expr?)
+    private static LazyValue synchronizeWithTimeout(String name, boolean exclusive, Context c, Context.Type t, List<LazyValue> lv)
+    {
+        if (lv.size() < 2 || lv.size() > 4)
+        {
+            throw new InternalExpressionException("'" + name + "' requires a lock, an expression, and optionally a timeout and an expression to run on timeout");
+        }
+        Value lockValue = lv.get(0).evalValue(c);
+        LazyValue expr = lv.get(1);
+        long timeout = lv.size() > 2 ? NumericValue.asNumber(lv.get(2).evalValue(c)).getLong() : -1;
+        Value ret = c.host.getLocks().withLock(lockValue, exclusive, timeout,
+                () -> expr.evalValue(c, t),
+                () -> lv.size() > 3 ? lv.get(3).evalValue(c, t) : Value.NULL
+        );
+        return (ct, tt) -> ret;
+    }
 }
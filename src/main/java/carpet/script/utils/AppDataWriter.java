@@ -0,0 +1,106 @@
+package carpet.script.utils;
+
+import carpet.script.CarpetScriptServer;
+import carpet.script.argument.FileArgument;
+import net.minecraft.nbt.Tag;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes app data files off the server thread.
+ * Callers hand over a snapshot of the tag, and if the file is saved again before the previous write started,
+ * only the latest snapshot gets written. Reads of a file with a write still pending see the pending data.
+ */
+public class AppDataWriter
+{
+    private static final Map<Path, Tag> pending = new HashMap<>();
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scarpet-app-data");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param snapshot tag that won't be modified anymore
+     */
+    public static void submit(Path path, Tag snapshot)
+    {
+        synchronized (pending)
+        {
+            if (pending.put(path, snapshot) != null)
+            {
+                // already queued, will pick the latest tag
+                return;
+            }
+        }
+        writer.execute(() -> write(path));
+    }
+
+    private static void write(Path path)
+    {
+        PathLocks.withLock(path, () -> {
+            Tag tag;
+            synchronized (pending)
+            {
+                tag = pending.remove(path);
+            }
+            if (tag == null)
+            {
+                return null;
+            }
+            try
+            {
+                Files.createDirectories(path.getParent());
+                FileArgument.writeTagDisk(tag, path, false);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                // nobody to throw to, writeTagDisk logs its own errors
+                CarpetScriptServer.LOG.warn("Unable to save app data to " + path, e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Should be called while holding the lock for the path, otherwise the write could start right after
+     *
+     * @return copy of data waiting to be written to the file, if any
+     */
+    @Nullable
+    public static Tag getPending(Path path)
+    {
+        synchronized (pending)
+        {
+            Tag tag = pending.get(path);
+            return tag == null ? null : tag.copy();
+        }
+    }
+
+    /**
+     * Waits for all writes submitted so far
+     */
+    public static void flush()
+    {
+        try
+        {
+            writer.submit(() -> {}).get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            CarpetScriptServer.LOG.warn("Unable to finish saving app data", e);
+        }
+    }
+}
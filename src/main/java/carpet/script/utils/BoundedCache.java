@@ -0,0 +1,114 @@
+package carpet.script.utils;
+
+import carpet.script.value.MapValue;
+import carpet.script.value.NumericValue;
+import carpet.script.value.StringValue;
+import carpet.script.value.Value;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size limited cache of parsed values, like nbt paths or entity selectors, safe to use from task threads.
+ * When full, the oldest entries are evicted first. All caches register by name, so their stats can be
+ * listed in system_info, and dropped together when scripts are reloaded.
+ */
+public class BoundedCache<K, V>
+{
+    private static final Map<String, BoundedCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    private final int capacity;
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+    private final Queue<K> order = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private BoundedCache(int capacity)
+    {
+        this.capacity = capacity;
+    }
+
+    public static <K, V> BoundedCache<K, V> create(String name, int capacity)
+    {
+        BoundedCache<K, V> cache = new BoundedCache<>(capacity);
+        caches.put(name, cache);
+        return cache;
+    }
+
+    @Nullable
+    public V get(K key)
+    {
+        V value = entries.get(key);
+        if (value == null)
+        {
+            misses.increment();
+        }
+        else
+        {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(K key, V value)
+    {
+        if (entries.put(key, value) != null)
+        {
+            return;
+        }
+        order.add(key);
+        while (entries.size() > capacity)
+        {
+            K eldest = order.poll();
+            if (eldest == null)
+            {
+                break;
+            }
+            if (entries.remove(eldest) != null)
+            {
+                evictions.increment();
+            }
+        }
+    }
+
+    public void clear()
+    {
+        entries.clear();
+        order.clear();
+    }
+
+    public Value getStats()
+    {
+        Map<Value, Value> stats = new HashMap<>();
+        stats.put(StringValue.of("size"), NumericValue.of(entries.size()));
+        stats.put(StringValue.of("capacity"), NumericValue.of(capacity));
+        stats.put(StringValue.of("hits"), NumericValue.of(hits.sum()));
+        stats.put(StringValue.of("misses"), NumericValue.of(misses.sum()));
+        stats.put(StringValue.of("evictions"), NumericValue.of(evictions.sum()));
+        return MapValue.wrap(stats);
+    }
+
+    /**
+     * @return stats of all caches, by name
+     */
+    public static Map<Value, Value> getAllStats()
+    {
+        Map<Value, Value> stats = new HashMap<>();
+        caches.forEach((name, cache) -> stats.put(StringValue.of(name), cache.getStats()));
+        return stats;
+    }
+
+    /**
+     * Parsed values may refer to registries or worlds that are gone after a reload
+     */
+    public static void clearAll()
+    {
+        caches.values().forEach(BoundedCache::clear);
+    }
+}
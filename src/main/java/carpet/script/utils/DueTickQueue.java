@@ -0,0 +1,119 @@
+package carpet.script.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Queue of entries bucketed by the tick they are due, with its own tick clock, so adding an entry
+ * and collecting everything due on a tick doesn't depend on the number of entries waiting.
+ * Entries can be removed by their group, only touching buckets that hold entries of that group.
+ * Entries due on the same tick come back in the order they were added.
+ * Safe to add to from other threads.
+ */
+public class DueTickQueue<T>
+{
+    private final Long2ObjectOpenHashMap<List<T>> buckets = new Long2ObjectOpenHashMap<>();
+    private final Map<Object, LongSet> groupTicks = new Object2ObjectOpenHashMap<>();
+    private final Function<T, Object> grouping;
+    private long currentTick = 0;
+    private int size = 0;
+
+    public DueTickQueue(Function<T, Object> grouping)
+    {
+        this.grouping = grouping;
+    }
+
+    /**
+     * @param delay number of ticks from now, entries are due no sooner than on the next tick
+     * @return tick the entry is due
+     */
+    public synchronized long add(long delay, T entry)
+    {
+        long due = currentTick + Math.max(delay, 1);
+        buckets.computeIfAbsent(due, k -> new ArrayList<>()).add(entry);
+        Object group = grouping.apply(entry);
+        if (group != null)
+        {
+            groupTicks.computeIfAbsent(group, k -> new LongOpenHashSet()).add(due);
+        }
+        size++;
+        return due;
+    }
+
+    /**
+     * Moves the clock one tick forward
+     *
+     * @return entries due on that tick
+     */
+    public synchronized List<T> advance()
+    {
+        currentTick++;
+        List<T> due = buckets.remove(currentTick);
+        if (due == null)
+        {
+            return Collections.emptyList();
+        }
+        size -= due.size();
+        for (T entry : due)
+        {
+            Object group = grouping.apply(entry);
+            if (group != null)
+            {
+                LongSet ticks = groupTicks.get(group);
+                if (ticks != null && ticks.remove(currentTick) && ticks.isEmpty())
+                {
+                    groupTicks.remove(group);
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * @return number of removed entries
+     */
+    public synchronized int removeGroup(Object group)
+    {
+        LongSet ticks = groupTicks.remove(group);
+        if (ticks == null)
+        {
+            return 0;
+        }
+        int removed = 0;
+        for (long tick : ticks)
+        {
+            List<T> bucket = buckets.get(tick);
+            if (bucket == null)
+            {
+                continue;
+            }
+            int before = bucket.size();
+            bucket.removeIf(e -> group.equals(grouping.apply(e)));
+            removed += before - bucket.size();
+            if (bucket.isEmpty())
+            {
+                buckets.remove(tick);
+            }
+        }
+        size -= removed;
+        return removed;
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    public synchronized long currentTick()
+    {
+        return currentTick;
+    }
+}
@@ -0,0 +1,88 @@
+package carpet.script.utils;
+
+import carpet.script.CarpetExpression;
+import carpet.script.ScriptHost;
+import carpet.script.value.MapValue;
+import carpet.script.value.NumericValue;
+import carpet.script.value.StringValue;
+import carpet.script.value.Value;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Least recently used cache of expressions run from commands, keyed by the app host and the code,
+ * so snippets run over and over again, e.g. from command blocks or datapacks, are parsed and optimized once.
+ * Entries of an app are dropped when the app is closed or reloaded.
+ */
+public class ExpressionCache
+{
+    private record Key(ScriptHost host, String code)
+    {
+    }
+
+    private final int capacity;
+    private final Map<Key, CarpetExpression> expressions;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public ExpressionCache(int capacity)
+    {
+        this.capacity = capacity;
+        this.expressions = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CarpetExpression> eldest)
+            {
+                if (size() > ExpressionCache.this.capacity)
+                {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param compiler creates the expression if it is not cached yet
+     */
+    public synchronized CarpetExpression get(ScriptHost host, String code, Supplier<CarpetExpression> compiler)
+    {
+        Key key = new Key(host, code);
+        CarpetExpression expression = expressions.get(key);
+        if (expression != null)
+        {
+            hits++;
+            return expression;
+        }
+        misses++;
+        expression = compiler.get();
+        expressions.put(key, expression);
+        return expression;
+    }
+
+    public synchronized void invalidate(ScriptHost host)
+    {
+        expressions.keySet().removeIf(key -> key.host() == host);
+    }
+
+    public synchronized void clear()
+    {
+        expressions.clear();
+    }
+
+    public synchronized Value getStats()
+    {
+        Map<Value, Value> stats = new HashMap<>();
+        stats.put(StringValue.of("size"), NumericValue.of(expressions.size()));
+        stats.put(StringValue.of("capacity"), NumericValue.of(capacity));
+        stats.put(StringValue.of("hits"), NumericValue.of(hits));
+        stats.put(StringValue.of("misses"), NumericValue.of(misses));
+        stats.put(StringValue.of("evictions"), NumericValue.of(evictions));
+        return MapValue.wrap(stats);
+    }
+}
@@ -0,0 +1,49 @@
+package carpet.script.utils;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Locks guarding script file access, one per file or zip container, so apps working with different files
+ * don't wait for each other. Like {@link ScriptLocks}, a lock only exists while it is held or waited for.
+ */
+public class PathLocks
+{
+    private static class Entry
+    {
+        final ReentrantLock lock = new ReentrantLock();
+        int users = 0;
+    }
+
+    private static final Map<Path, Entry> locks = new HashMap<>();
+
+    public static <T> T withLock(Path path, Supplier<T> action)
+    {
+        Path key = path.toAbsolutePath().normalize();
+        Entry entry;
+        synchronized (locks)
+        {
+            entry = locks.computeIfAbsent(key, k -> new Entry());
+            entry.users++;
+        }
+        entry.lock.lock();
+        try
+        {
+            return action.get();
+        }
+        finally
+        {
+            entry.lock.unlock();
+            synchronized (locks)
+            {
+                if (--entry.users == 0)
+                {
+                    locks.remove(key);
+                }
+            }
+        }
+    }
+}
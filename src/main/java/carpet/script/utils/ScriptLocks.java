@@ -0,0 +1,129 @@
+package carpet.script.utils;
+
+import carpet.script.exception.ExitStatement;
+import carpet.script.exception.InternalExpressionException;
+import carpet.script.value.MapValue;
+import carpet.script.value.NumericValue;
+import carpet.script.value.StringValue;
+import carpet.script.value.Value;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Read/write locks of an app, used by scarpet 'synchronize' family of functions, keyed by any value.
+ * Locks only exist while someone holds or waits for them, so apps locking on many dynamic values
+ * don't keep growing the lock table, and two different keys never share a lock.
+ */
+public class ScriptLocks
+{
+    private static class Entry
+    {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        int users = 0;
+    }
+
+    private final Map<Value, Entry> locks = new HashMap<>();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+
+    /**
+     * Runs the action holding the lock for the key
+     *
+     * @param exclusive write lock if true, shared read lock otherwise
+     * @param timeout   milliseconds to wait for the lock, negative to wait indefinitely
+     * @param onTimeout called instead of the action if the lock couldn't be taken in time
+     */
+    public <T> T withLock(Value key, boolean exclusive, long timeout, Supplier<T> action, Supplier<T> onTimeout)
+    {
+        Entry entry;
+        synchronized (locks)
+        {
+            entry = locks.computeIfAbsent(key, k -> new Entry());
+            entry.users++;
+        }
+        try
+        {
+            if (exclusive && entry.lock.getReadHoldCount() > 0 && !entry.lock.isWriteLockedByCurrentThread())
+            {
+                throw new InternalExpressionException("Cannot acquire write lock on " + key.getString() + " while holding a read lock on it");
+            }
+            Lock lock = exclusive ? entry.lock.writeLock() : entry.lock.readLock();
+            if (!lock.tryLock())
+            {
+                contended.increment();
+                long start = System.nanoTime();
+                boolean locked;
+                try
+                {
+                    if (timeout < 0)
+                    {
+                        lock.lockInterruptibly();
+                        locked = true;
+                    }
+                    else
+                    {
+                        locked = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
+                    }
+                }
+                catch (InterruptedException ignored)
+                {
+                    // app is shutting down
+                    Thread.currentThread().interrupt();
+                    throw new ExitStatement(Value.NULL);
+                }
+                finally
+                {
+                    waitTime.add(System.nanoTime() - start);
+                }
+                if (!locked)
+                {
+                    timedOut.increment();
+                    return onTimeout.get();
+                }
+            }
+            acquired.increment();
+            try
+            {
+                return action.get();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+        finally
+        {
+            synchronized (locks)
+            {
+                if (--entry.users == 0)
+                {
+                    locks.remove(key);
+                }
+            }
+        }
+    }
+
+    public Value getStats()
+    {
+        int live;
+        synchronized (locks)
+        {
+            live = locks.size();
+        }
+        Map<Value, Value> stats = new HashMap<>();
+        stats.put(StringValue.of("locks"), NumericValue.of(live));
+        stats.put(StringValue.of("acquired"), NumericValue.of(acquired.sum()));
+        stats.put(StringValue.of("contended"), NumericValue.of(contended.sum()));
+        stats.put(StringValue.of("timed_out"), NumericValue.of(timedOut.sum()));
+        stats.put(StringValue.of("wait_time"), new NumericValue(waitTime.sum() / 1000000.0));
+        return MapValue.wrap(stats);
+    }
+}
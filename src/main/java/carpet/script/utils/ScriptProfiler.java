@@ -0,0 +1,166 @@
+package carpet.script.utils;
+
+import carpet.script.value.MapValue;
+import carpet.script.value.NumericValue;
+import carpet.script.value.StringValue;
+import carpet.script.value.Value;
+
+import javax.annotation.Nullable;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times scarpet code by app, by event and by user defined function. In sampled mode only one in every n calls,
+ * picked at random, is timed, and counts as n calls, so it is cheap enough to keep on. Reports of /profile scarpet
+ * time every call. Function times include the functions they call, and calls from task threads.
+ */
+public class ScriptProfiler
+{
+    public enum Kind
+    {
+        APP, EVENT, FUNCTION;
+
+        public final String key = name().toLowerCase(Locale.ROOT) + "s";
+    }
+
+    public record Stat(long calls, long nanos)
+    {
+    }
+
+    public record Token(Kind kind, String name, int weight, long start)
+    {
+    }
+
+    private static final class Counter
+    {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+
+    private static final Map<Kind, Map<String, Counter>> counters = new EnumMap<>(Kind.class);
+    private static int sampling = 0;
+    private static boolean reporting = false;
+    // checked on every call, so kept in a single field
+    private static volatile int rate = 0;
+
+    static
+    {
+        for (Kind kind : Kind.values())
+        {
+            counters.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * @param everyNth time one in every that many calls, 1 to time all of them, or 0 to not time them outside of reports
+     */
+    public static synchronized void setSampling(int everyNth)
+    {
+        sampling = everyNth;
+        rate = reporting ? 1 : sampling;
+    }
+
+    /**
+     * Times all calls while a report is running
+     */
+    public static synchronized void setReporting(boolean active)
+    {
+        reporting = active;
+        rate = reporting ? 1 : sampling;
+    }
+
+    public static int getSampling()
+    {
+        return sampling;
+    }
+
+    /**
+     * @param app  name of the app, or null for the global host
+     * @param name name of the event or function, ignored for apps
+     * @return token to pass to {@link #end}, or null if this call is not timed
+     */
+    @Nullable
+    public static Token start(Kind kind, @Nullable String app, @Nullable String name)
+    {
+        int n = rate;
+        if (n == 0 || (n > 1 && ThreadLocalRandom.current().nextInt(n) != 0))
+        {
+            return null;
+        }
+        String appName = app == null ? "global" : app;
+        String key = switch (kind)
+        {
+            case APP -> appName;
+            case EVENT -> name;
+            case FUNCTION -> appName + "::" + name;
+        };
+        return new Token(kind, key, n, System.nanoTime());
+    }
+
+    public static void end(@Nullable Token token)
+    {
+        if (token == null)
+        {
+            return;
+        }
+        long time = System.nanoTime() - token.start();
+        Counter counter = counters.get(token.kind()).computeIfAbsent(token.name(), k -> new Counter());
+        counter.calls.add(token.weight());
+        counter.nanos.add(time * token.weight());
+    }
+
+    /**
+     * @return totals by name, estimated from the samples for calls that were sampled
+     */
+    public static Map<String, Stat> getStats(Kind kind)
+    {
+        Map<String, Stat> stats = new HashMap<>();
+        counters.get(kind).forEach((name, counter) -> stats.put(name, new Stat(counter.calls.sum(), counter.nanos.sum())));
+        return stats;
+    }
+
+    /**
+     * @return totals by name since the earlier stats were taken
+     */
+    public static Map<String, Stat> getStatsSince(Kind kind, Map<String, Stat> earlier)
+    {
+        Map<String, Stat> stats = getStats(kind);
+        stats.replaceAll((name, stat) -> {
+            Stat before = earlier.get(name);
+            return before == null ? stat : new Stat(Math.max(0, stat.calls() - before.calls()), Math.max(0, stat.nanos() - before.nanos()));
+        });
+        stats.values().removeIf(stat -> stat.calls() == 0);
+        return stats;
+    }
+
+    public static Value getAllStats()
+    {
+        Map<Value, Value> stats = new HashMap<>();
+        stats.put(StringValue.of("sampling"), NumericValue.of(sampling));
+        for (Kind kind : Kind.values())
+        {
+            Map<Value, Value> byName = new HashMap<>();
+            getStats(kind).forEach((name, stat) -> {
+                Map<Value, Value> entry = new HashMap<>();
+                entry.put(StringValue.of("calls"), NumericValue.of(stat.calls()));
+                entry.put(StringValue.of("time"), new NumericValue(stat.nanos() / 1.0E6));
+                byName.put(StringValue.of(name), MapValue.wrap(entry));
+            });
+            stats.put(StringValue.of(kind.key), MapValue.wrap(byName));
+        }
+        return MapValue.wrap(stats);
+    }
+
+    /**
+     * Apps and functions may be gone after a reload
+     */
+    public static void clear()
+    {
+        counters.values().forEach(Map::clear);
+    }
+}
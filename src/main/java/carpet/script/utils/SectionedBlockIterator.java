@@ -0,0 +1,144 @@
+package carpet.script.utils;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads block states directly from chunk sections, remembering the last section it touched,
+ * so walking over large areas doesn't go through the chunk cache lookup for every single block.
+ * States are always read at the time of the visit, so changes made by the visitor are picked up.
+ */
+public class SectionedBlockIterator
+{
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final BlockState VOID_AIR = Blocks.VOID_AIR.defaultBlockState();
+
+    @FunctionalInterface
+    public interface BlockVisitor
+    {
+        /**
+         * @return false to stop the iteration
+         */
+        boolean visit(int x, int y, int z, BlockState state);
+    }
+
+    private final ServerLevel level;
+    private final boolean fallback;
+    @Nullable
+    private LevelChunkSection section;
+    private int sectionX;
+    private int sectionY;
+    private int sectionZ;
+
+    private SectionedBlockIterator(ServerLevel level)
+    {
+        this.level = level;
+        // debug world generates its states on the fly
+        this.fallback = level.isDebug();
+    }
+
+    private BlockState getBlockState(int x, int y, int z)
+    {
+        if (level.isOutsideBuildHeight(y))
+        {
+            return VOID_AIR;
+        }
+        if (fallback)
+        {
+            return level.getBlockState(new BlockPos(x, y, z));
+        }
+        LevelChunkSection current = section(x >> 4, y >> 4, z >> 4);
+        // same as LevelChunk.getBlockState, just without the chunk lookup
+        return current.hasOnlyAir() ? AIR : current.getBlockState(x & 15, y & 15, z & 15);
+    }
+
+    private LevelChunkSection section(int sx, int sy, int sz)
+    {
+        if (section == null || sx != sectionX || sy != sectionY || sz != sectionZ)
+        {
+            section = level.getChunk(sx, sz).getSection(level.getSectionIndexFromSectionY(sy));
+            sectionX = sx;
+            sectionY = sy;
+            sectionZ = sz;
+        }
+        return section;
+    }
+
+    /**
+     * Visits every block of the box (inclusive bounds) one chunk section at a time, bottom to top,
+     * iterating y, x, z within each section.
+     * Sections outside of the build height are not loaded, and sections that are all air are resolved
+     * without touching their palette.
+     *
+     * @return false if the visitor stopped the iteration early
+     */
+    public static boolean forEach(ServerLevel level, int minx, int miny, int minz, int maxx, int maxy, int maxz, BlockVisitor visitor)
+    {
+        SectionedBlockIterator iterator = new SectionedBlockIterator(level);
+        for (int sy = miny >> 4; sy <= maxy >> 4; sy++)
+        {
+            int fromY = Math.max(miny, sy << 4);
+            int toY = Math.min(maxy, (sy << 4) + 15);
+            for (int sx = minx >> 4; sx <= maxx >> 4; sx++)
+            {
+                int fromX = Math.max(minx, sx << 4);
+                int toX = Math.min(maxx, (sx << 4) + 15);
+                for (int sz = minz >> 4; sz <= maxz >> 4; sz++)
+                {
+                    int fromZ = Math.max(minz, sz << 4);
+                    int toZ = Math.min(maxz, (sz << 4) + 15);
+                    if (!iterator.visitSection(fromX, fromY, fromZ, toX, toY, toZ, visitor))
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean visitSection(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, BlockVisitor visitor)
+    {
+        if (fallback || level.isOutsideBuildHeight(fromY))
+        {
+            for (int y = fromY; y <= toY; y++)
+            {
+                for (int x = fromX; x <= toX; x++)
+                {
+                    for (int z = fromZ; z <= toZ; z++)
+                    {
+                        if (!visitor.visit(x, y, z, getBlockState(x, y, z)))
+                        {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+        LevelChunkSection current = section(fromX >> 4, fromY >> 4, fromZ >> 4);
+        for (int y = fromY; y <= toY; y++)
+        {
+            int ly = y & 15;
+            for (int x = fromX; x <= toX; x++)
+            {
+                int lx = x & 15;
+                for (int z = fromZ; z <= toZ; z++)
+                {
+                    // air check is a counter read, and visitors may place blocks in the section as we go
+                    BlockState state = current.hasOnlyAir() ? AIR : current.getBlockState(lx, ly, z & 15);
+                    if (!visitor.visit(x, y, z, state))
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
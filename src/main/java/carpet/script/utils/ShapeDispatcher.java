@@ -22,6 +22,9 @@ import carpet.script.value.Value;
 import carpet.script.value.ValueConversions;
 
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.Registry;
@@ -34,6 +37,7 @@ import net.minecraft.nbt.DoubleTag;
 import net.minecraft.nbt.FloatTag;
 import net.minecraft.nbt.IntTag;
 import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
 import net.minecraft.nbt.NbtUtils;
 import net.minecraft.nbt.StringTag;
 import net.minecraft.nbt.Tag;
@@ -51,6 +55,7 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
 
 import javax.annotation.Nullable;
@@ -58,14 +63,18 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static java.util.Map.entry;
@@ -144,41 +153,374 @@ public class ShapeDispatcher
         return new ShapeWithConfig(ShapeDispatcher.create(server, shapeType, params), params);
     }
 
+    // shapes sent in a single packet
+    private static final int SHAPES_PER_PACKET = 1000;
+    // client shapes expiring sooner than that may be gone before their renewal arrives
+    private static final int RENEW_MARGIN = 20;
+    private static final int CLEANUP_INTERVAL = 200;
+
+    /**
+     * Shapes a client with a shape cache has, by their key, with the game tick they expire
+     */
+    private static class ClientShapes
+    {
+        final Long2LongOpenHashMap expiries = new Long2LongOpenHashMap();
+        long lastCleanup;
+    }
+
+    private static final Map<UUID, ClientShapes> clientShapes = new ConcurrentHashMap<>();
+
+    /**
+     * Called when client drops its shapes
+     */
+    public static void forgetClientShapes(UUID player)
+    {
+        clientShapes.remove(player);
+        PlayerShapes state = playerShapes.get(player);
+        if (state != null)
+        {
+            synchronized (state)
+            {
+                state.shown.clear();
+            }
+        }
+    }
+
+    /**
+     * Called when player disconnects
+     *
+     * @param player uuid of the player, or null for all players
+     */
+    public static void forgetPlayer(@Nullable UUID player)
+    {
+        if (player == null)
+        {
+            clientShapes.clear();
+            playerShapes.clear();
+        }
+        else
+        {
+            clientShapes.remove(player);
+            playerShapes.remove(player);
+        }
+    }
+
     public static void sendShape(Collection<ServerPlayer> players, List<ShapeWithConfig> shapes)
     {
-        List<ServerPlayer> clientPlayers = new ArrayList<>();
-        List<ServerPlayer> alternativePlayers = new ArrayList<>();
+        Map<ShapeWithConfig, CompoundTag> encoded = new IdentityHashMap<>();
+        Map<ShapeWithConfig, Consumer<ServerPlayer>> alternatives = new IdentityHashMap<>();
+        Function<ShapeWithConfig, CompoundTag> encoder = s -> encoded.computeIfAbsent(s, k -> ExpiringShape.toTag(k.config()));
         for (ServerPlayer player : players)
         {
-            (Carpet.isValidCarpetPlayer(player) ? clientPlayers : alternativePlayers).add(player);
+            boolean isClient = Carpet.isValidCarpetPlayer(player);
+            // particles are gone right away, so there is no point sending them later
+            List<ShapeWithConfig> visible = cullShapes(player, shapes, isClient);
+            if (isClient)
+            {
+                sendToClient(player, visible, encoder);
+            }
+            else
+            {
+                visible.forEach(s -> alternatives.computeIfAbsent(s, k -> k.shape().alternative()).accept(player));
+            }
+        }
+    }
+
+    private static void sendToClient(ServerPlayer player, List<ShapeWithConfig> shapes, Function<ShapeWithConfig, CompoundTag> encoder)
+    {
+        if (shapes.isEmpty())
+        {
+            return;
         }
-        if (!clientPlayers.isEmpty())
+        if (Vanilla.hasScarpetShapeCache(player))
+        {
+            sendCachedShapes(player, shapes, encoder);
+            return;
+        }
+        ListTag tag = new ListTag();
+        int tagcount = 0;
+        for (ShapeWithConfig s : shapes)
+        {
+            tag.add(encoder.apply(s));  // 4000 shapes limit boxes
+            if (tagcount++ > SHAPES_PER_PACKET)
+            {
+                tagcount = 0;
+                Vanilla.sendScarpetShapesDataToPlayer(player, tag);
+                tag = new ListTag();
+            }
+        }
+        if (!tag.isEmpty())
+        {
+            Vanilla.sendScarpetShapesDataToPlayer(player, tag);
+        }
+    }
+
+    private record DeferredShape(ShapeWithConfig shape, long expiry)
+    {
+    }
+
+    /**
+     * Shapes of a player with a carpet client, by their keys: the ones out of sight, to send when the player
+     * gets close to them, and the ones the client was sent, to remove when the player leaves them behind
+     */
+    private static class PlayerShapes
+    {
+        final Long2ObjectOpenHashMap<DeferredShape> deferred = new Long2ObjectOpenHashMap<>();
+        final Long2ObjectOpenHashMap<DeferredShape> shown = new Long2ObjectOpenHashMap<>();
+    }
+
+    private static final Map<UUID, PlayerShapes> playerShapes = new ConcurrentHashMap<>();
+    private static final int DEFERRED_CHECK_INTERVAL = 10;
+
+    /**
+     * Updates and removals of shapes the client was sent are always passed on, wherever the shapes are
+     *
+     * @param defer whether shapes out of range should be sent when player gets close to them
+     * @return shapes to send to the player now, the same list if all of them
+     */
+    private static List<ShapeWithConfig> cullShapes(ServerPlayer player, List<ShapeWithConfig> shapes, boolean defer)
+    {
+        double range = viewRange(player);
+        if (!defer)
+        {
+            // nothing stays on screen, so there is nothing to update or remove later
+            List<ShapeWithConfig> visible = shapes.stream().filter(s -> isInRange(player, s.shape(), range)).toList();
+            return visible.size() == shapes.size() ? shapes : visible;
+        }
+        RegistryAccess regs = player.server.registryAccess();
+        long now = player.server.overworld().getGameTime();
+        PlayerShapes state = playerShapes.computeIfAbsent(player.getUUID(), uuid -> new PlayerShapes());
+        List<ShapeWithConfig> visible = new ArrayList<>(shapes.size());
+        synchronized (state)
         {
-            ListTag tag = new ListTag();
-            int tagcount = 0;
             for (ShapeWithConfig s : shapes)
             {
-                tag.add(ExpiringShape.toTag(s.config()));  // 4000 shapes limit boxes
-                if (tagcount++ > 1000)
+                long key = s.shape().key(regs);
+                int duration = durationOf(s);
+                if (duration <= 0)
+                {
+                    state.deferred.remove(key);
+                    if (state.shown.remove(key) != null)
+                    {
+                        visible.add(s);
+                    }
+                }
+                else if (state.shown.containsKey(key) || isInRange(player, s.shape(), range))
                 {
-                    tagcount = 0;
-                    Tag finalTag = tag;
-                    clientPlayers.forEach(p -> Vanilla.sendScarpetShapesDataToPlayer(p, finalTag));
-                    tag = new ListTag();
+                    state.deferred.remove(key);
+                    state.shown.put(key, new DeferredShape(s, now + duration));
+                    visible.add(s);
+                }
+                else
+                {
+                    state.deferred.put(key, new DeferredShape(s, now + duration));
                 }
             }
-            Tag finalTag = tag;
-            if (!tag.isEmpty())
+        }
+        return visible.size() == shapes.size() ? shapes : visible;
+    }
+
+    private static double viewRange(ServerPlayer player)
+    {
+        return (player.server.getPlayerList().getViewDistance() + 1) * 16.0;
+    }
+
+    private static boolean isInRange(ServerPlayer player, ExpiringShape shape, double range)
+    {
+        if (player.level().dimension() != shape.shapeDimension)
+        {
+            return false;
+        }
+        AABB bounds = shape.bounds();
+        if (bounds == null)
+        {
+            return true;
+        }
+        Vec3 eyes = player.getEyePosition();
+        double dx = Math.max(0.0, Math.max(bounds.minX - eyes.x, eyes.x - bounds.maxX));
+        double dy = Math.max(0.0, Math.max(bounds.minY - eyes.y, eyes.y - bounds.maxY));
+        double dz = Math.max(0.0, Math.max(bounds.minZ - eyes.z, eyes.z - bounds.maxZ));
+        return dx * dx + dy * dy + dz * dz <= range * range;
+    }
+
+    private static int durationOf(ShapeWithConfig s)
+    {
+        return NumericValue.asNumber(s.config().get("duration")).getInt();
+    }
+
+    /**
+     * Sends shapes players got close to, for the rest of their duration, removes the ones they left behind,
+     * or that are in another dimension, until they get back to them, and drops the ones that expired
+     */
+    public static void sendDeferredShapes(MinecraftServer server)
+    {
+        long now = server.overworld().getGameTime();
+        if (playerShapes.isEmpty() || now % DEFERRED_CHECK_INTERVAL != 0)
+        {
+            return;
+        }
+        playerShapes.entrySet().removeIf(entry -> {
+            ServerPlayer player = server.getPlayerList().getPlayer(entry.getKey());
+            if (player == null)
             {
-                clientPlayers.forEach(p -> Vanilla.sendScarpetShapesDataToPlayer(p, finalTag));
+                return true;
+            }
+            double range = viewRange(player);
+            List<ShapeWithConfig> changes = new ArrayList<>();
+            PlayerShapes state = entry.getValue();
+            synchronized (state)
+            {
+                List<DeferredShape> entered = new ArrayList<>();
+                state.deferred.values().removeIf(deferred -> {
+                    if (deferred.expiry() <= now)
+                    {
+                        return true;
+                    }
+                    if (!isInRange(player, deferred.shape().shape(), range))
+                    {
+                        return false;
+                    }
+                    changes.add(withDuration(deferred.shape(), deferred.expiry() - now));
+                    entered.add(deferred);
+                    return true;
+                });
+                state.shown.long2ObjectEntrySet().removeIf(shown -> {
+                    DeferredShape sent = shown.getValue();
+                    if (sent.expiry() <= now)
+                    {
+                        return true;
+                    }
+                    if (isInRange(player, sent.shape().shape(), range))
+                    {
+                        return false;
+                    }
+                    changes.add(withDuration(sent.shape(), 0));
+                    state.deferred.put(shown.getLongKey(), sent);
+                    return true;
+                });
+                RegistryAccess regs = server.registryAccess();
+                entered.forEach(shape -> state.shown.put(shape.shape().shape().key(regs), shape));
+            }
+            sendToClient(player, changes, s -> ExpiringShape.toTag(s.config()));
+            return false;
+        });
+    }
+
+    private static ShapeWithConfig withDuration(ShapeWithConfig shape, long duration)
+    {
+        Map<String, Value> config = new HashMap<>(shape.config());
+        config.put("duration", NumericValue.of(duration));
+        return new ShapeWithConfig(shape.shape(), config);
+    }
+
+    /**
+     * Sends to the client only the shapes it doesn't have. Shapes it has only get their expiry renewed,
+     * sent as pairs of shape key and duration. New shapes are sent as deltas to the previous shape in the packet,
+     * since shapes drawn together usually only differ in their positions.
+     *
+     * @param encoder encodes shapes, sharing them between players
+     */
+    private static void sendCachedShapes(ServerPlayer player, List<ShapeWithConfig> shapes, Function<ShapeWithConfig, CompoundTag> encoder)
+    {
+        RegistryAccess regs = player.server.registryAccess();
+        long now = player.server.overworld().getGameTime();
+        ClientShapes known = clientShapes.computeIfAbsent(player.getUUID(), uuid -> new ClientShapes());
+        LongArrayList renewed = new LongArrayList();
+        ListTag added = new ListTag();
+        CompoundTag previous = new CompoundTag();
+        synchronized (known)
+        {
+            if (now - known.lastCleanup > CLEANUP_INTERVAL)
+            {
+                known.lastCleanup = now;
+                known.expiries.long2LongEntrySet().removeIf(entry -> entry.getLongValue() < now);
+            }
+            for (ShapeWithConfig s : shapes)
+            {
+                long key = s.shape().key(regs);
+                int duration = durationOf(s);
+                if (known.expiries.get(key) > now + RENEW_MARGIN)
+                {
+                    renewed.add(key);
+                    renewed.add(duration);
+                }
+                else
+                {
+                    CompoundTag full = encoder.apply(s);
+                    CompoundTag delta = deltaTag(previous, full);
+                    delta.putLong(ExpiringShape.KEY_FIELD, key);
+                    added.add(delta);
+                    previous = full;
+                    if (added.size() >= SHAPES_PER_PACKET)
+                    {
+                        Vanilla.sendScarpetShapesDataToPlayer(player, ExpiringShape.DELTA_PACKET, added);
+                        added = new ListTag();
+                        previous = new CompoundTag();
+                    }
+                }
+                known.expiries.put(key, now + duration);
+            }
+        }
+        if (!added.isEmpty())
+        {
+            Vanilla.sendScarpetShapesDataToPlayer(player, ExpiringShape.DELTA_PACKET, added);
+        }
+        if (!renewed.isEmpty())
+        {
+            Vanilla.sendScarpetShapesDataToPlayer(player, ExpiringShape.RENEW_PACKET, new LongArrayTag(renewed.toLongArray()));
+        }
+    }
+
+    private static CompoundTag deltaTag(CompoundTag previous, CompoundTag current)
+    {
+        CompoundTag delta = new CompoundTag();
+        for (String field : current.getAllKeys())
+        {
+            Tag value = current.get(field);
+            if (!value.equals(previous.get(field)))
+            {
+                delta.put(field, value);
+            }
+        }
+        ListTag removed = new ListTag();
+        for (String field : previous.getAllKeys())
+        {
+            if (!current.contains(field))
+            {
+                removed.add(StringTag.valueOf(field));
             }
         }
-        if (!alternativePlayers.isEmpty())
+        if (!removed.isEmpty())
         {
-            List<Consumer<ServerPlayer>> alternatives = new ArrayList<>();
-            shapes.forEach(s -> alternatives.add(s.shape().alternative()));
-            alternativePlayers.forEach(p -> alternatives.forEach(a -> a.accept(p)));
+            delta.put(ExpiringShape.REMOVED_FIELD, removed);
         }
+        return delta;
+    }
+
+    // client
+    /**
+     * Reverses {@link #deltaTag}, changing the previous tag into the current one
+     *
+     * @return key the server uses for the shape
+     */
+    public static long applyDeltaTag(CompoundTag previous, CompoundTag delta)
+    {
+        for (String field : delta.getAllKeys())
+        {
+            if (field.equals(ExpiringShape.REMOVED_FIELD))
+            {
+                ListTag removed = delta.getList(field, Tag.TAG_STRING);
+                for (int i = 0; i < removed.size(); i++)
+                {
+                    previous.remove(removed.getString(i));
+                }
+            }
+            else if (!field.equals(ExpiringShape.KEY_FIELD))
+            {
+                previous.put(field, delta.get(field));
+            }
+        }
+        return delta.getLong(ExpiringShape.KEY_FIELD);
     }
 
     public static ParticleOptions getParticleData(String name, RegistryAccess regs)
@@ -272,6 +614,12 @@ public class ShapeDispatcher
 
     public abstract static class ExpiringShape
     {
+        public static final String DELTA_PACKET = "scShapesDelta";
+        public static final String RENEW_PACKET = "scShapesRenew";
+        // not valid shape parameters, so can't clash with them
+        public static final String KEY_FIELD = "#";
+        public static final String REMOVED_FIELD = "-";
+
         public static final Map<String, BiFunction<Map<String, Value>, RegistryAccess, ExpiringShape>> shapeProviders = new HashMap<>()
         {{
             put("line", creator(Line::new));
@@ -394,6 +742,21 @@ public class ShapeDispatcher
             return duration;
         }
 
+        /**
+         * @return area the shape takes, or null if it's not known on the server, like for shapes following entities
+         */
+        @Nullable
+        public AABB bounds()
+        {
+            return followEntity >= 0 ? null : shapeBounds();
+        }
+
+        @Nullable
+        protected AABB shapeBounds()
+        {
+            return null;
+        }
+
         public Vec3 toAbsolute(Entity e, Vec3 vec, float partialTick)
         {
             return vec.add(
@@ -608,6 +971,12 @@ public class ShapeDispatcher
             size = NumericValue.asNumber(options.getOrDefault("size", optional.get("size"))).getFloat();
         }
 
+        @Override
+        protected AABB shapeBounds()
+        {
+            return new AABB(pos, pos);
+        }
+
         private int rgba2argb(int color)
         {
             int r = Math.max(1, color >> 24 & 0xFF);
@@ -755,6 +1124,12 @@ public class ShapeDispatcher
             scaleZ = NumericValue.asNumber(scale.get(2)).getFloat();
         }
 
+        @Override
+        protected AABB shapeBounds()
+        {
+            return new AABB(pos, pos).inflate(Math.max(scaleX, Math.max(scaleY, scaleZ)));
+        }
+
         @Override
         public Consumer<ServerPlayer> alternative()
         {
@@ -862,6 +1237,12 @@ public class ShapeDispatcher
             to = vecFromValue(options.get("to"));
         }
 
+        @Override
+        protected AABB shapeBounds()
+        {
+            return new AABB(from, to);
+        }
+
         @Override
         public Consumer<ServerPlayer> alternative()
         {
@@ -1164,6 +1545,17 @@ public class ShapeDispatcher
             }
 
         }
+
+        @Override
+        protected AABB shapeBounds()
+        {
+            AABB bounds = new AABB(vertexList.get(0), vertexList.get(0));
+            for (Vec3 vertex : vertexList)
+            {
+                bounds = bounds.minmax(new AABB(vertex, vertex));
+            }
+            return bounds;
+        }
     }
 
     public static class Line extends ExpiringShape
@@ -1199,6 +1591,12 @@ public class ShapeDispatcher
             to = vecFromValue(options.get("to"));
         }
 
+        @Override
+        protected AABB shapeBounds()
+        {
+            return new AABB(from, to);
+        }
+
         @Override
         public Consumer<ServerPlayer> alternative()
         {
@@ -1273,6 +1671,12 @@ public class ShapeDispatcher
             }
         }
 
+        @Override
+        protected AABB shapeBounds()
+        {
+            return new AABB(center, center).inflate(radius);
+        }
+
         @Override
         public Consumer<ServerPlayer> alternative()
         {
@@ -1369,6 +1773,17 @@ public class ShapeDispatcher
             axis = Direction.Axis.byName(options.getOrDefault("axis", optional.get("axis")).getString());
         }
 
+        @Override
+        protected AABB shapeBounds()
+        {
+            Vec3 end = center.relative(Direction.fromAxisAndDirection(axis, Direction.AxisDirection.POSITIVE), height);
+            return new AABB(center, end).inflate(
+                    axis == Direction.Axis.X ? 0 : radius,
+                    axis == Direction.Axis.Y ? 0 : radius,
+                    axis == Direction.Axis.Z ? 0 : radius
+            );
+        }
+
 
         @Override
         public Consumer<ServerPlayer> alternative()
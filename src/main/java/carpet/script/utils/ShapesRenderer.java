@@ -16,6 +16,7 @@ import com.mojang.blaze3d.vertex.VertexFormat.Mode;
 import com.mojang.math.Axis;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 
+import javax.annotation.Nullable;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -56,9 +57,14 @@ import net.minecraft.world.phys.Vec3;
 
 public class ShapesRenderer
 {
+    private static final int SCARPET_CLIENT = Carpet.profilerSection("Scarpet client");
+
     private final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<RenderedShape<? extends ShapeDispatcher.ExpiringShape>>> shapes;
     private final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<RenderedShape<? extends ShapeDispatcher.ExpiringShape>>> labels;
     private final Minecraft client;
+    // shapes by the key server knows them by, so the server can renew them without sending them again
+    private final Long2ObjectOpenHashMap<RenderedShape<? extends ShapeDispatcher.ExpiringShape>> serverKeys = new Long2ObjectOpenHashMap<>();
+    private boolean usesShapeCache = false;
 
     private final Map<String, BiFunction<Minecraft, ShapeDispatcher.ExpiringShape, RenderedShape<? extends ShapeDispatcher.ExpiringShape>>> renderedShapes
             = new HashMap<>()
@@ -111,7 +117,7 @@ public class ShapesRenderer
 
     public void render(PoseStack matrices, Camera camera, float partialTick)
     {
-        Runnable token = Carpet.startProfilerSection("Scarpet client");
+        long token = Carpet.startProfilerSection();
         //Camera camera = this.client.gameRenderer.getCamera();
         ClientLevel iWorld = this.client.level;
         ResourceKey<Level> dimensionType = iWorld.dimension();
@@ -150,6 +156,10 @@ public class ShapesRenderer
             shapes.get(dimensionType).long2ObjectEntrySet().removeIf(
                     entry -> entry.getValue().isExpired(currentTime)
             );
+            if (!serverKeys.isEmpty())
+            {
+                serverKeys.values().removeIf(shape -> shape.isExpired(currentTime));
+            }
             PoseStack matrixStack = RenderSystem.getModelViewStack();
             matrixStack.pushPose();
             matrixStack.mulPoseMatrix(matrices.last().pose());
@@ -192,31 +202,69 @@ public class ShapesRenderer
         RenderSystem.depthMask(true);
         RenderSystem.enableBlend();
         RenderSystem.defaultBlendFunc();
-        token.run();
+        Carpet.endProfilerSection(SCARPET_CLIENT, token);
     }
 
     public void addShapes(ListTag tag)
     {
-        Runnable token = Carpet.startProfilerSection("Scarpet client");
+        long token = Carpet.startProfilerSection();
         for (int i = 0, count = tag.size(); i < count; i++)
         {
             addShape(tag.getCompound(i));
         }
-        token.run();
+        Carpet.endProfilerSection(SCARPET_CLIENT, token);
+    }
+
+    /**
+     * Adds shapes sent as deltas to the previous shape in the list, remembering them by the server's key
+     */
+    public void addShapeDeltas(ListTag tag)
+    {
+        long token = Carpet.startProfilerSection();
+        usesShapeCache = true;
+        CompoundTag current = new CompoundTag();
+        for (int i = 0, count = tag.size(); i < count; i++)
+        {
+            long serverKey = ShapeDispatcher.applyDeltaTag(current, tag.getCompound(i));
+            RenderedShape<?> rshape = addShape(current.copy());
+            if (rshape != null)
+            {
+                serverKeys.put(serverKey, rshape);
+            }
+        }
+        Carpet.endProfilerSection(SCARPET_CLIENT, token);
+    }
+
+    /**
+     * @param keysAndDurations pairs of server shape keys and new durations of these shapes
+     */
+    public void extendShapes(long[] keysAndDurations)
+    {
+        long currentTime = client.level.getGameTime();
+        for (int i = 0; i + 1 < keysAndDurations.length; i += 2)
+        {
+            RenderedShape<?> rshape = serverKeys.get(keysAndDurations[i]);
+            if (rshape != null && !rshape.isExpired(currentTime))
+            {
+                rshape.expiryTick = currentTime + keysAndDurations[i + 1];
+            }
+        }
     }
 
-    public void addShape(CompoundTag tag)
+    @Nullable
+    public RenderedShape<?> addShape(CompoundTag tag)
     {
         ShapeDispatcher.ExpiringShape shape = ShapeDispatcher.fromTag(tag, client.level);
         if (shape == null)
         {
-            return;
+            return null;
         }
         BiFunction<Minecraft, ShapeDispatcher.ExpiringShape, RenderedShape<? extends ShapeDispatcher.ExpiringShape>> shapeFactory;
         shapeFactory = renderedShapes.get(tag.getString("shape"));
         if (shapeFactory == null)
         {
             CarpetScriptServer.LOG.info("Unrecognized shape: " + tag.getString("shape"));
+            return null;
         }
         else
         {
@@ -229,12 +277,10 @@ public class ShapesRenderer
             if (existing != null)
             {   // promoting previous shape
                 existing.promoteWith(rshape);
+                return existing;
             }
-            else
-            {
-                container.get(dim).put(key, rshape);
-            }
-
+            container.get(dim).put(key, rshape);
+            return rshape;
         }
     }
 
@@ -242,15 +288,22 @@ public class ShapesRenderer
     {
         shapes.values().forEach(Long2ObjectOpenHashMap::clear);
         labels.values().forEach(Long2ObjectOpenHashMap::clear);
+        serverKeys.clear();
+        if (usesShapeCache)
+        {
+            // server needs to send everything again
+            usesShapeCache = false;
+            VanillaClient.sendShapeCacheReset();
+        }
     }
 
     public void renewShapes()
     {
-        Runnable token = Carpet.startProfilerSection("Scarpet client");
+        long token = Carpet.startProfilerSection();
         shapes.values().forEach(el -> el.values().forEach(shape -> shape.expiryTick++));
         labels.values().forEach(el -> el.values().forEach(shape -> shape.expiryTick++));
 
-        token.run();
+        Carpet.endProfilerSection(SCARPET_CLIENT, token);
     }
 
     public abstract static class RenderedShape<T extends ShapeDispatcher.ExpiringShape>
@@ -43,6 +43,12 @@ public class SystemInfo
         put("app_list", c -> ListValue.wrap(((CarpetScriptHost) c.host).scriptServer().modules.keySet().stream().filter(Objects::nonNull).map(StringValue::new)));
         put("app_scope", c -> StringValue.of((c.host).isPerUser() ? "player" : "global"));
         put("app_players", c -> ListValue.wrap(c.host.getUserList().stream().map(StringValue::new)));
+        put("app_task_pools", c -> {
+            Map<Value, Value> pools = new HashMap<>();
+            c.host.getTaskPools().forEach((pool, executor) -> pools.put(pool, executor.getStats()));
+            return MapValue.wrap(pools);
+        });
+        put("app_locks", c -> c.host.getLocks().getStats());
 
         put("world_name", c -> new StringValue(c.server().getWorldData().getLevelName()));
         put("world_seed", c -> new NumericValue(c.level().getSeed()));
@@ -129,6 +135,8 @@ public class SystemInfo
         });
         put("server_dev_environment", c -> BooleanValue.of(Vanilla.isDevelopmentEnvironment()));
         put("server_mods", c -> Vanilla.getServerMods(c.server()));
+        put("server_packets", c -> Carpet.getPacketStats());
+        put("server_chunk_times", c -> Carpet.getChunkTimes());
         put("server_last_tick_times", c -> {
             //assuming we are in the tick world section
             // might be off one tick when run in the off tasks or asynchronously.
@@ -192,6 +200,12 @@ public class SystemInfo
             return ListValue.of(new NumericValue(rotation.x), new NumericValue(rotation.y));
         });
         put("scarpet_version", c -> StringValue.of(Carpet.getCarpetVersion()));
+        put("scarpet_caches", c -> {
+            Map<Value, Value> stats = BoundedCache.getAllStats();
+            stats.put(StringValue.of("commands"), ((CarpetScriptHost) c.host).scriptServer().expressionCache.getStats());
+            return MapValue.wrap(stats);
+        });
+        put("scarpet_profile", c -> ScriptProfiler.getAllStats());
     }};
 
     public static Value get(String what, CarpetContext cc)
@@ -0,0 +1,247 @@
+package carpet.script.utils;
+
+import carpet.script.exception.InternalExpressionException;
+import carpet.script.value.MapValue;
+import carpet.script.value.NumericValue;
+import carpet.script.value.StringValue;
+import carpet.script.value.Value;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor behind a single pool of scarpet tasks, with a configurable kind of threads, limit of waiting tasks
+ * and what to do when it is reached. Threads are named after the app and the pool, and the pool keeps track
+ * of its tasks so they can be inspected via system_info and /script tasks.
+ */
+public class TaskPool implements Executor
+{
+    public enum Type
+    {
+        CACHED, FIXED, WORK_STEALING, VIRTUAL
+    }
+
+    public enum Rejection
+    {
+        ABORT, CALLER_RUNS
+    }
+
+    /**
+     * @param threads    maximum number of threads, 0 for no limit (cached pools only)
+     * @param queueLimit maximum number of tasks waiting for a thread, 0 for no limit
+     */
+    public record Config(Type type, int threads, int queueLimit, Rejection rejection)
+    {
+        public static final Config DEFAULT = new Config(Type.CACHED, 0, 0, Rejection.ABORT);
+
+        /**
+         * Reads pool settings from the app config, like {'type' -> 'fixed', 'threads' -> 4, 'queue' -> 100, 'rejection' -> 'caller_runs'}
+         *
+         * @param threadLimit server wide cap on threads per pool, 0 for no cap
+         */
+        public static Config fromValue(@Nullable Value value, int threadLimit)
+        {
+            if (value == null || value.isNull())
+            {
+                return threadLimit > 0 ? new Config(Type.CACHED, threadLimit, 0, Rejection.ABORT) : DEFAULT;
+            }
+            if (!(value instanceof final MapValue map))
+            {
+                throw new InternalExpressionException("Task pool config should be a map");
+            }
+            Map<Value, Value> options = map.getMap();
+            Type type;
+            Rejection rejection;
+            try
+            {
+                type = Type.valueOf(options.getOrDefault(StringValue.of("type"), StringValue.of("cached")).getString().toUpperCase(Locale.ROOT));
+                rejection = Rejection.valueOf(options.getOrDefault(StringValue.of("rejection"), StringValue.of("abort")).getString().toUpperCase(Locale.ROOT));
+            }
+            catch (IllegalArgumentException ignored)
+            {
+                throw new InternalExpressionException("Unknown task pool type or rejection policy in " + value.getString());
+            }
+            int threads = (int) NumericValue.asNumber(options.getOrDefault(StringValue.of("threads"), Value.ZERO)).getLong();
+            int queue = (int) NumericValue.asNumber(options.getOrDefault(StringValue.of("queue"), Value.ZERO)).getLong();
+            if (threads < 0 || queue < 0)
+            {
+                throw new InternalExpressionException("Task pool can't have negative number of threads or queue size");
+            }
+            if (threads == 0 && (type == Type.FIXED || type == Type.WORK_STEALING))
+            {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+            if (threadLimit > 0 && type != Type.VIRTUAL && (threads == 0 || threads > threadLimit))
+            {
+                threads = threadLimit;
+            }
+            return new Config(type, threads, queue, rejection);
+        }
+    }
+
+    private final String name;
+    private final Config config;
+    private final ExecutorService executor;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWait = new LongAdder();
+    private final LongAdder totalRun = new LongAdder();
+
+    public TaskPool(String name, Config config)
+    {
+        this.name = name;
+        ExecutorService virtual = config.type() == Type.VIRTUAL ? virtualExecutor(name) : null;
+        // no virtual threads on this runtime, closest thing is a cached pool
+        this.config = config.type() == Type.VIRTUAL && virtual == null ? new Config(Type.CACHED, 0, config.queueLimit(), config.rejection()) : config;
+        this.executor = virtual != null ? virtual : switch (this.config.type())
+        {
+            case WORK_STEALING -> new ForkJoinPool(this.config.threads(), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(name + "-" + thread.getPoolIndex());
+                return thread;
+            }, null, true);
+            case FIXED, CACHED, VIRTUAL -> {
+                if (this.config.threads() == 0)
+                {
+                    yield Executors.newCachedThreadPool(threadFactory(name));
+                }
+                ThreadPoolExecutor bounded = new ThreadPoolExecutor(this.config.threads(), this.config.threads(), 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory(name));
+                bounded.allowCoreThreadTimeOut(true);
+                yield bounded;
+            }
+        };
+    }
+
+    private static ThreadFactory threadFactory(String name)
+    {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory parent = Executors.defaultThreadFactory();
+        return runnable -> {
+            Thread thread = parent.newThread(runnable);
+            thread.setName(name + "-" + counter.getAndIncrement());
+            return thread;
+        };
+    }
+
+    @Nullable
+    private static ExecutorService virtualExecutor(String name)
+    {
+        // Java 17 target, so virtual threads can only be reached reflectively when running on 21+
+        try
+        {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        }
+        catch (ReflectiveOperationException | RuntimeException ignored)
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task)
+    {
+        execute(task, true);
+    }
+
+    /**
+     * @param mayRunInCaller whether task can be run in the calling thread when the pool is full and set to do so,
+     *                       which tasks that need to talk back to the caller, like coroutines, can't
+     */
+    public void execute(Runnable task, boolean mayRunInCaller)
+    {
+        if (config.queueLimit() > 0 && queued.get() >= config.queueLimit())
+        {
+            rejected.increment();
+            if (config.rejection() == Rejection.CALLER_RUNS && mayRunInCaller)
+            {
+                task.run();
+                return;
+            }
+            throw new InternalExpressionException("Task pool " + name + " is full, with " + queued.get() + " tasks waiting");
+        }
+        long submitted = System.nanoTime();
+        queued.incrementAndGet();
+        try
+        {
+            executor.execute(() -> {
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                long start = System.nanoTime();
+                totalWait.add(start - submitted);
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    totalRun.add(System.nanoTime() - start);
+                    active.decrementAndGet();
+                    completed.increment();
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public int activeCount()
+    {
+        return active.get();
+    }
+
+    public void shutdown()
+    {
+        executor.shutdown();
+    }
+
+    public void shutdownNow()
+    {
+        executor.shutdownNow();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    public Value getStats()
+    {
+        long done = completed.sum();
+        Map<Value, Value> stats = new HashMap<>();
+        stats.put(StringValue.of("type"), StringValue.of(config.type().name().toLowerCase(Locale.ROOT)));
+        stats.put(StringValue.of("threads"), NumericValue.of(config.threads()));
+        stats.put(StringValue.of("queue_limit"), NumericValue.of(config.queueLimit()));
+        stats.put(StringValue.of("rejection"), StringValue.of(config.rejection().name().toLowerCase(Locale.ROOT)));
+        stats.put(StringValue.of("active"), NumericValue.of(active.get()));
+        stats.put(StringValue.of("queued"), NumericValue.of(queued.get()));
+        stats.put(StringValue.of("completed"), NumericValue.of(done));
+        stats.put(StringValue.of("rejected"), NumericValue.of(rejected.sum()));
+        stats.put(StringValue.of("average_wait"), new NumericValue(done == 0 ? 0.0 : totalWait.sum() / 1000000.0 / done));
+        stats.put(StringValue.of("average_time"), new NumericValue(done == 0 ? 0.0 : totalRun.sum() / 1000000.0 / done));
+        return MapValue.wrap(stats);
+    }
+}
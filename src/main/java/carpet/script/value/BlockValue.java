@@ -4,13 +4,13 @@ import carpet.script.CarpetContext;
 import carpet.script.exception.InternalExpressionException;
 import carpet.script.exception.ThrowStatement;
 import carpet.script.exception.Throwables;
+import carpet.script.utils.BoundedCache;
 
 import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -60,7 +60,7 @@ public class BlockValue extends Value
         return new BlockValue(null, c.level(), pos);
     }
 
-    private static final Map<String, BlockValue> bvCache = new HashMap<>();
+    private static final BoundedCache<String, BlockValue> bvCache = BoundedCache.create("block", 10000);
 
     public static BlockValue fromString(String str, ServerLevel level)
     {
@@ -80,10 +80,6 @@ public class BlockValue extends Value
                     bd = new CompoundTag();
                 }
                 bv = new BlockValue(foo.blockState(), level, null, bd);
-                if (bvCache.size() > 10000)
-                {
-                    bvCache.clear();
-                }
                 bvCache.put(str, bv);
                 return bv;
             }
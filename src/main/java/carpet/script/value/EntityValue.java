@@ -8,10 +8,12 @@ import carpet.script.EntityEventsGroup;
 import carpet.script.argument.Vector3Argument;
 import carpet.script.exception.InternalExpressionException;
 import carpet.script.external.Carpet;
+import carpet.script.utils.BoundedCache;
 import carpet.script.utils.EntityTools;
 import carpet.script.utils.InputValidator;
 import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.arguments.selector.EntitySelector;
 import net.minecraft.commands.arguments.selector.EntitySelectorParser;
@@ -108,7 +110,7 @@ public class EntityValue extends Value
         return e == null ? Value.NULL : new EntityValue(e);
     }
 
-    private static final Map<String, EntitySelector> selectorCache = new HashMap<>();
+    private static final BoundedCache<String, EntitySelector> selectorCache = BoundedCache.create("entity_selector", 1024);
 
     public static Collection<? extends Entity> getEntitiesFromSelector(CommandSourceStack source, String selector)
     {
@@ -849,12 +851,13 @@ public class EntityValue extends Value
         });
 
         put("nbt", (e, a) -> {
-            CompoundTag nbttagcompound = e.saveWithoutId((new CompoundTag()));
             if (a == null)
             {
-                return new NBTSerializableValue(nbttagcompound);
+                return new NBTSerializableValue(e.saveWithoutId(new CompoundTag()));
             }
-            return new NBTSerializableValue(nbttagcompound).get(a);
+            // path lookups read from the per tick snapshot, which is not owned and gets copied before any changes
+            CompoundTag snapshot = Vanilla.Entity_getNbtSnapshot(e);
+            return new NBTSerializableValue(() -> snapshot).get(a);
         });
 
         put("category", (e, a) -> {
@@ -871,6 +874,7 @@ public class EntityValue extends Value
         try
         {
             featureModifiers.get(what).accept(getEntity(), toWhat);
+            Vanilla.Entity_invalidateNbtSnapshot(getEntity());
         }
         catch (NullPointerException npe)
         {
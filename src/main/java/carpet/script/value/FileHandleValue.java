@@ -0,0 +1,284 @@
+package carpet.script.value;
+
+import carpet.script.ScriptHost;
+import carpet.script.exception.InternalExpressionException;
+import carpet.script.exception.ThrowStatement;
+import carpet.script.exception.Throwables;
+import carpet.script.utils.PathLocks;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * File opened with open_file, kept open between calls, so large files can be read line by line
+ * and written to in batches without holding the whole content in memory, or reopening the file each time.
+ * Iterating over the handle lazily reads the remaining lines. Handles are closed with close_file,
+ * when reading reaches the end of the file, or when the app is unloaded.
+ * Each operation holds the lock of the file, like other file functions and app data saves do.
+ */
+public class FileHandleValue extends LazyListValue
+{
+    public enum Mode
+    {
+        READ, WRITE, APPEND
+    }
+
+    // large files are read sequentially, so bigger buffers mean fewer reads
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static long sequence = 0L;
+
+    private final long id;
+    private final String name;
+    private final Path path;
+    private final ScriptHost host;
+    private final boolean records;
+    private final Function<String, Value> decoder;
+    private final Function<Value, String> encoder;
+    @Nullable
+    private BufferedReader reader;
+    @Nullable
+    private BufferedWriter writer;
+    @Nullable
+    private String nextLine;
+
+    /**
+     * @param decoder turns a line of the file into a value
+     * @param encoder turns a value into text to write, including line separators if needed
+     * @param records  whether a list written on its own is a single value, like in json files, rather than a list of lines
+     */
+    public FileHandleValue(ScriptHost host, Path path, String name, Mode mode, boolean records, Function<String, Value> decoder, Function<Value, String> encoder)
+    {
+        synchronized (FileHandleValue.class)
+        {
+            this.id = sequence++;
+        }
+        this.name = name;
+        this.path = path;
+        this.host = host;
+        this.records = records;
+        this.decoder = decoder;
+        this.encoder = encoder;
+        locked(() -> {
+            try
+            {
+                if (mode == Mode.READ)
+                {
+                    reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8), BUFFER_SIZE);
+                }
+                else
+                {
+                    StandardOpenOption truncate = mode == Mode.APPEND ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+                    writer = new BufferedWriter(new OutputStreamWriter(
+                            Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, truncate), StandardCharsets.UTF_8), BUFFER_SIZE);
+                }
+            }
+            catch (IOException e)
+            {
+                throw new ThrowStatement("Unable to open file " + name + ": " + e, Throwables.IO_EXCEPTION);
+            }
+            return null;
+        });
+        host.getOpenFiles().add(this);
+    }
+
+    public synchronized boolean isOpen()
+    {
+        return reader != null || writer != null || nextLine != null;
+    }
+
+    /**
+     * @return next line of the file, or null if there is none
+     */
+    @Nullable
+    public synchronized Value readLine()
+    {
+        return hasNext() ? next() : null;
+    }
+
+    /**
+     * Writes the values passed to write_file after the handle, a single list being written as its items,
+     * unless the file holds whole values per line
+     */
+    public synchronized void write(List<Value> values)
+    {
+        if (writer == null)
+        {
+            throw new InternalExpressionException("File " + name + " is " + (reader != null ? "opened for reading" : "closed"));
+        }
+        Iterable<Value> items = !records && values.size() == 1 && values.get(0) instanceof final ListValue list ? list.getItems() : values;
+        locked(() -> {
+            try
+            {
+                for (Value value : items)
+                {
+                    writer.write(encoder.apply(value));
+                }
+            }
+            catch (IOException e)
+            {
+                close();
+                throw new ThrowStatement("Error when writing to the file " + name + ": " + e, Throwables.IO_EXCEPTION);
+            }
+            return null;
+        });
+    }
+
+    public synchronized void close()
+    {
+        host.getOpenFiles().remove(this);
+        nextLine = null;
+        locked(() -> {
+            try
+            {
+                if (reader != null)
+                {
+                    reader.close();
+                }
+                if (writer != null)
+                {
+                    writer.close();
+                }
+            }
+            catch (IOException e)
+            {
+                throw new ThrowStatement("Error when closing the file " + name + ": " + e, Throwables.IO_EXCEPTION);
+            }
+            finally
+            {
+                reader = null;
+                writer = null;
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized boolean hasNext()
+    {
+        if (nextLine == null && reader != null)
+        {
+            locked(() -> {
+                try
+                {
+                    nextLine = reader.readLine();
+                }
+                catch (IOException e)
+                {
+                    close();
+                    throw new ThrowStatement("Error when reading file " + name + ": " + e, Throwables.IO_EXCEPTION);
+                }
+                return null;
+            });
+            if (nextLine == null)
+            {
+                close();
+            }
+        }
+        return nextLine != null;
+    }
+
+    private <T> T locked(Supplier<T> action)
+    {
+        return PathLocks.withLock(path, action);
+    }
+
+    @Override
+    public synchronized Value next()
+    {
+        if (!hasNext())
+        {
+            return Value.EOL;
+        }
+        String line = nextLine;
+        nextLine = null;
+        return decoder.apply(line);
+    }
+
+    @Override
+    public void reset()
+    {
+        // files are read once, lines that were read are gone
+    }
+
+    @Override
+    public Iterator<Value> iterator()
+    {
+        return this;
+    }
+
+    @Override
+    public Object clone()
+    {
+        return this;
+    }
+
+    @Override
+    public Value deepcopy()
+    {
+        return this;
+    }
+
+    @Override
+    public String getString()
+    {
+        return "file " + name;
+    }
+
+    @Override
+    public boolean getBoolean()
+    {
+        return isOpen();
+    }
+
+    @Override
+    public String getTypeString()
+    {
+        return "file_handle";
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof final FileHandleValue fhv && fhv.id == this.id;
+    }
+
+    @Override
+    public int compareTo(Value o)
+    {
+        if (!(o instanceof final FileHandleValue fhv))
+        {
+            throw new InternalExpressionException("Cannot compare file handles to other types");
+        }
+        return Long.compare(this.id, fhv.id);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public Tag toTag(boolean force)
+    {
+        if (!force)
+        {
+            throw new NBTSerializableValue.IncompatibleTypeException(this);
+        }
+        return StringTag.valueOf(getString());
+    }
+}
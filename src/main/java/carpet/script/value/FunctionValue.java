@@ -6,12 +6,14 @@ import carpet.script.Expression;
 import carpet.script.Fluff;
 import carpet.script.LazyValue;
 import carpet.script.Module;
+import carpet.script.SymbolTable;
 import carpet.script.Tokenizer;
 import carpet.script.exception.BreakStatement;
 import carpet.script.exception.ContinueStatement;
 import carpet.script.exception.ExpressionException;
 import carpet.script.exception.InternalExpressionException;
 import carpet.script.exception.ReturnStatement;
+import carpet.script.utils.ScriptProfiler;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -35,6 +37,8 @@ public class FunctionValue extends Value implements Fluff.ILazyFunction
     private final String varArgs;
     private static long variantCounter = 1;
     private long variant;
+    // frame slots of arguments, and varargs last, -1 for those the code never references directly
+    private final int[] argSlots;
 
     private FunctionValue(Expression expression, Tokenizer.Token token, String name, LazyValue body, List<String> args, String varArgs)
     {
@@ -45,6 +49,7 @@ public class FunctionValue extends Value implements Fluff.ILazyFunction
         this.args = args;
         this.varArgs = varArgs;
         this.outerState = null;
+        this.argSlots = argSlots(expression, args, varArgs);
         variant = 0L;
     }
 
@@ -57,9 +62,37 @@ public class FunctionValue extends Value implements Fluff.ILazyFunction
         this.args = args;
         this.varArgs = varArgs;
         this.outerState = outerState;
+        this.argSlots = argSlots(expression, args, varArgs);
         variant = variantCounter++;
     }
 
+    /**
+     * Functions are created by running compiled code, so the symbols of the code are all known by then
+     */
+    private static int[] argSlots(Expression expression, List<String> args, @Nullable String varArgs)
+    {
+        SymbolTable symbols = expression.getSymbols();
+        int[] slots = new int[args.size() + 1];
+        for (int i = 0; i < args.size(); i++)
+        {
+            slots[i] = symbols.indexOf(args.get(i));
+        }
+        slots[args.size()] = varArgs == null ? -1 : symbols.indexOf(varArgs);
+        return slots;
+    }
+
+    private static void setArgument(Context frame, SymbolTable symbols, int slot, String name, LazyValue value)
+    {
+        if (slot < 0)
+        {
+            frame.setVariable(name, value);
+        }
+        else
+        {
+            frame.setVariable(symbols, slot, name, value);
+        }
+    }
+
     @Override
     public String getString()
     {
@@ -195,7 +228,7 @@ public class FunctionValue extends Value implements Fluff.ILazyFunction
     public static List<Value> unpackArgs(List<LazyValue> lazyParams, Context c)
     {
         // TODO we shoudn't need that if all fuctions are not lazy really
-        List<Value> params = new ArrayList<>();
+        List<Value> params = new ArrayList<>(lazyParams.size());
         for (LazyValue lv : lazyParams)
         {
             Value param = lv.evalValue(c, Context.NONE);
@@ -238,7 +271,8 @@ public class FunctionValue extends Value implements Fluff.ILazyFunction
                             ". Should be at least " + args.size() + ", not " + params.size() + " like " + argList
             );
         });
-        Context newFrame = c.recreate();
+        SymbolTable symbols = expression.getSymbols();
+        Context newFrame = c.recreate(symbols);
         if (freshNewCallingThread != null)
         {
             newFrame.setThreadContext(freshNewCallingThread);
@@ -251,24 +285,29 @@ public class FunctionValue extends Value implements Fluff.ILazyFunction
         for (int i = 0; i < args.size(); i++)
         {
             String arg = args.get(i);
-            Value val = params.get(i).reboundedTo(arg); // todo check if we need to copy that
-            newFrame.setVariable(arg, (cc, tt) -> val);
+            // copied and bound to the parameter when the call starts, and stored in the frame as is
+            setArgument(newFrame, symbols, argSlots[i], arg, params.get(i).reboundedTo(arg));
         }
         if (varArgs != null)
         {
-            List<Value> extraParams = new ArrayList<>();
+            List<Value> extraParams = new ArrayList<>(Math.max(0, params.size() - args.size()));
             for (int i = args.size(), mx = params.size(); i < mx; i++)
             {
                 extraParams.add(params.get(i).reboundedTo(null)); // copy by value I guess
             }
             Value rest = ListValue.wrap(extraParams).bindTo(varArgs); // didn't we just copied that?
-            newFrame.setVariable(varArgs, (cc, tt) -> rest);
-
+            setArgument(newFrame, symbols, argSlots[args.size()], varArgs, rest);
         }
         Value retVal;
+        ScriptProfiler.Token profilerToken = ScriptProfiler.start(ScriptProfiler.Kind.FUNCTION, c.host.getName(), name);
         try
         {
             retVal = body.evalValue(newFrame, type); // todo not sure if we need to propagete type / consider boolean context in defined functions - answer seems ye
+            if (newFrame.isSignalled())
+            {
+                newFrame.takeSignal();
+                retVal = newFrame.signalValue();
+            }
         }
         catch (BreakStatement | ContinueStatement exc)
         {
@@ -278,6 +317,10 @@ public class FunctionValue extends Value implements Fluff.ILazyFunction
         {
             retVal = returnStatement.retval;
         }
+        finally
+        {
+            ScriptProfiler.end(profilerToken);
+        }
         Value otherRetVal = retVal;
         return (cc, tt) -> otherRetVal;
     }
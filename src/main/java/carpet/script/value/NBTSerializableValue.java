@@ -5,6 +5,7 @@ import carpet.script.exception.InternalExpressionException;
 import carpet.script.exception.ThrowStatement;
 import carpet.script.exception.Throwables;
 import carpet.script.external.Vanilla;
+import carpet.script.utils.BoundedCache;
 import carpet.script.utils.EquipmentInventory;
 import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
@@ -339,7 +340,7 @@ public class NBTSerializableValue extends Value implements ContainerValueInterfa
         }
     }
 
-    private static final Map<String, ItemInput> itemCache = new HashMap<>();
+    private static final BoundedCache<String, ItemInput> itemCache = BoundedCache.create("item", 64000);
 
     public static ItemInput parseItem(String itemString, RegistryAccess regs)
     {
@@ -359,10 +360,6 @@ public class NBTSerializableValue extends Value implements ContainerValueInterfa
             res = new ItemInput(parser.item(), parser.nbt());
 
             itemCache.put(itemString, res);
-            if (itemCache.size() > 64000)
-            {
-                itemCache.clear();
-            }
             return customTag == null ? res : new ItemInput(Holder.direct(res.getItem()), customTag);
         }
         catch (CommandSyntaxException e)
@@ -731,7 +728,7 @@ public class NBTSerializableValue extends Value implements ContainerValueInterfa
         }
     }
 
-    private static final Map<String, NbtPathArgument.NbtPath> pathCache = new HashMap<>();
+    private static final BoundedCache<String, NbtPathArgument.NbtPath> pathCache = BoundedCache.create("nbt_path", 1024);
 
     private static NbtPathArgument.NbtPath cachePath(String arg)
     {
@@ -748,10 +745,6 @@ public class NBTSerializableValue extends Value implements ContainerValueInterfa
         {
             throw new InternalExpressionException("Incorrect nbt path: " + arg);
         }
-        if (pathCache.size() > 1024)
-        {
-            pathCache.clear();
-        }
         pathCache.put(arg, res);
         return res;
     }
@@ -49,7 +49,6 @@ import net.minecraft.world.inventory.LoomMenu;
 import net.minecraft.world.inventory.MerchantMenu;
 import net.minecraft.world.inventory.ShulkerBoxMenu;
 import net.minecraft.world.inventory.SimpleContainerData;
-import net.minecraft.world.inventory.Slot;
 import net.minecraft.world.inventory.SmithingMenu;
 import net.minecraft.world.inventory.SmokerMenu;
 import net.minecraft.world.inventory.StonecutterMenu;
@@ -419,7 +418,8 @@ public class ScreenValue extends Value
         @Override
         public boolean isEmpty()
         {
-            for (Slot slot : this.screenHandler.slots)
+            // inventory slots are spelled out, Slot alone is LazyValue.Slot inherited through Value
+            for (net.minecraft.world.inventory.Slot slot : this.screenHandler.slots)
             {
                 if (slot.hasItem() && !slot.getItem().isEmpty())
                 {
@@ -521,7 +521,7 @@ public class ScreenValue extends Value
         @Override
         public void clearContent()
         {
-            for (Slot slot : this.screenHandler.slots)
+            for (net.minecraft.world.inventory.Slot slot : this.screenHandler.slots)
             {
                 slot.set(ItemStack.EMPTY);
             }
@@ -530,7 +530,7 @@ public class ScreenValue extends Value
         }
 
 
-        public static ItemStack splitStack(List<Slot> slots, int slot, int amount)
+        public static ItemStack splitStack(List<net.minecraft.world.inventory.Slot> slots, int slot, int amount)
         {
             return slot >= 0 && slot < slots.size() && !slots.get(slot).getItem().isEmpty() && amount > 0 ? slots.get(slot).getItem().split(amount) : ItemStack.EMPTY;
         }
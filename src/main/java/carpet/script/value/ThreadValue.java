@@ -6,6 +6,7 @@ import carpet.script.Tokenizer;
 import carpet.script.exception.ExitStatement;
 import carpet.script.exception.ExpressionException;
 import carpet.script.exception.InternalExpressionException;
+import carpet.script.utils.TaskPool;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
@@ -13,7 +14,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 
 import net.minecraft.nbt.Tag;
@@ -38,7 +38,7 @@ public class ThreadValue extends LazyListValue
 
     public CompletableFuture<Value> getCompletableFutureFromFunction(Value pool, FunctionValue function, Expression expr, Tokenizer.Token token, Context ctx, List<Value> args)
     {
-        ExecutorService executor = ctx.host.getExecutor(pool);
+        TaskPool executor = ctx.host.getExecutor(pool);
         ThreadValue callingThread = isCoroutine ? this : null;
         if (executor == null)
         {
@@ -62,7 +62,7 @@ public class ThreadValue extends LazyListValue
                     ctx.host.handleExpressionException("Thread failed\n", exc);
                     return Value.NULL;
                 }
-            }, ctx.host.getExecutor(pool));
+            }, task -> executor.execute(task, callingThread == null));
         }
     }
 
@@ -1,6 +1,8 @@
 package carpet.script.value;
 
 import carpet.script.CarpetScriptServer;
+import carpet.script.Context;
+import carpet.script.LazyValue;
 import carpet.script.exception.InternalExpressionException;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonPrimitive;
@@ -16,7 +18,7 @@ import net.minecraft.nbt.Tag;
 
 import javax.annotation.Nullable;
 
-public abstract class Value implements Comparable<Value>, Cloneable
+public abstract class Value implements Comparable<Value>, Cloneable, LazyValue
 {
     public static final NumericValue FALSE = BooleanValue.FALSE;
     public static final NumericValue TRUE = BooleanValue.TRUE;
@@ -39,6 +41,16 @@ public abstract class Value implements Comparable<Value>, Cloneable
         return boundVariable;
     }
 
+    /**
+     * Values are their own lazy value, so ones computed up front, like arguments of a call,
+     * are stored in a scope as they are. Unlike {@link LazyValue.Constant}, reads get the same value, not a copy.
+     */
+    @Override
+    public Value evalValue(Context c, Context.Type type)
+    {
+        return this;
+    }
+
     public Value reboundedTo(String value)
     {
         Value copy;
@@ -1,5 +1,12 @@
 package carpet.utils;
 
+import carpet.fakes.LevelInterface;
+import carpet.script.utils.ScriptProfiler;
+import it.unimi.dsi.fastutil.longs.Long2DoubleMap;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2LongMap;
 import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.minecraft.commands.CommandSourceStack;
@@ -9,6 +16,7 @@ import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.level.Level;
@@ -16,7 +24,12 @@ import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static java.util.Map.entry;
@@ -26,7 +39,71 @@ public class CarpetProfiler
     private static final Object2LongOpenHashMap<String> SECTION_STATS = new Object2LongOpenHashMap<>();
     private static final Object2LongOpenHashMap<Pair<Level,Object>> ENTITY_TIMES = new Object2LongOpenHashMap<>();
     private static final Object2LongOpenHashMap<Pair<Level,Object>> ENTITY_COUNT = new Object2LongOpenHashMap<>();
+    private static final Object2LongOpenHashMap<String> SECTION_CALLS = new Object2LongOpenHashMap<>();
+    private static final Object2LongOpenHashMap<String> SECTION_QUEUED = new Object2LongOpenHashMap<>();
+    // entity and block entity times by chunk, keyed with packed chunk positions
+    private static final Map<Level, Long2LongOpenHashMap> CHUNK_TIMES = new HashMap<>();
+    // average ms per tick of chunks in the last entity report, replaced as a whole, so it can be read from other threads
+    private static volatile Map<ResourceKey<Level>, Long2DoubleMap> lastChunkTimes = Map.of();
+    private static final int REGION_SHIFT = 5;
+    // scarpet stats when the scarpet report started, the report shows what was added since
+    private static final Map<ScriptProfiler.Kind, Map<String, ScriptProfiler.Stat>> SCARPET_BASELINE = new EnumMap<>(ScriptProfiler.Kind.class);
 
+    // continuous profiling keeps section times of the last ticks in a ring buffer, one row per tick,
+    // with columns for sections, interned once, so recording a tick doesn't allocate.
+    // Section ids are resolved when the calling classes load, or once per level, and the time arrays
+    // are only touched by the server thread, so timing a section takes no locks
+    private static final Object2IntOpenHashMap<String> SECTION_IDS = new Object2IntOpenHashMap<>();
+    private static final List<String> SECTION_NAMES = new ArrayList<>();
+    private static volatile int sectionCount = 0;
+    private static long[] currentTickTimes = new long[64];
+    // section times of a running general report, by section id
+    private static long[] reportTimes = new long[64];
+    // sections timed on other threads, like client rendering, only go to a running report
+    private static final Object2LongOpenHashMap<String> OFF_THREAD_STATS = new Object2LongOpenHashMap<>();
+    private static volatile Thread serverThread = null;
+    private static long[] history = new long[0];
+    private static int historySize = 0;
+    private static int historyWidth = 0;
+    private static int historyHead = 0;
+    private static int historyFilled = 0;
+
+    static
+    {
+        SECTION_IDS.defaultReturnValue(-1);
+    }
+
+    private static final int TICK_SECTION = sectionId("tick");
+    public static final int NETWORK = sectionId("Network");
+    public static final int AUTOSAVE = sectionId("Autosave");
+    public static final int ASYNC_TASKS = sectionId("Async Tasks");
+    public static final int DATAPACKS = sectionId("Datapacks");
+    public static final int CARPET = sectionId("Carpet");
+
+    /**
+     * Sections timed separately for each level, their ids are kept on the level
+     */
+    public enum LevelSection
+    {
+        SPAWNING("Spawning"),
+        RANDOM_TICKS("Random Ticks"),
+        UNLOADING("Unloading"),
+        SCHEDULE_TICKS("Schedule Ticks"),
+        BLOCK_EVENTS("Block Events"),
+        ENTITIES("Entities"),
+        BLOCK_ENTITIES("Block Entities"),
+        RAID("Raid"),
+        ENVIRONMENT("Environment");
+
+        private final String name;
+
+        LevelSection(String name)
+        {
+            this.name = name;
+        }
+    }
+
+    private static final LevelSection[] LEVEL_SECTIONS = LevelSection.values();
 
     private static CommandSourceStack currentRequester = null;
     public static int tick_health_requested = 0;
@@ -71,14 +148,15 @@ public class CarpetProfiler
         NONE,
         GENERAL,
         ENTITY,
-        TILEENTITY
+        TILEENTITY,
+        SCARPET
     }
 
-    public static record ProfilerToken(TYPE type, Object section, long start, Level world)
+    public static record ProfilerToken(TYPE type, Object section, long start, Level world, long chunk)
     {
-        public ProfilerToken(TYPE type, Object section, Level world)
+        public ProfilerToken(TYPE type, Object section, Level world, long chunk)
         {
-            this(type, section, System.nanoTime(), world);
+            this(type, section, System.nanoTime(), world, chunk);
         }
     }
 
@@ -86,8 +164,11 @@ public class CarpetProfiler
     {
         //maybe add so it only spams the sending player, but honestly - all may want to see it
         SECTION_STATS.clear(); // everything then defaults to 0
+        SECTION_CALLS.clear();
+        SECTION_QUEUED.clear();
         ENTITY_COUNT.clear();
         ENTITY_TIMES.clear();
+        Arrays.fill(reportTimes, 0L);
         test_type = TYPE.GENERAL;
 
         tick_health_elapsed = ticks;
@@ -102,6 +183,7 @@ public class CarpetProfiler
         SECTION_STATS.clear();
         ENTITY_COUNT.clear();
         ENTITY_TIMES.clear();
+        CHUNK_TIMES.clear();
         test_type = TYPE.ENTITY;
         tick_health_elapsed = ticks;
         tick_health_requested = ticks;
@@ -109,42 +191,174 @@ public class CarpetProfiler
         currentRequester = source;
     }
 
-    public static ProfilerToken start_section(Level world, String name, TYPE type)
+    public static void prepare_scarpet_report(CommandSourceStack source, int ticks)
     {
-        if (tick_health_requested == 0L || test_type != TYPE.GENERAL || current_tick_start == 0)
-            return null;
-        return new ProfilerToken(type, name, world);
+        SECTION_STATS.clear();
+        SCARPET_BASELINE.clear();
+        for (ScriptProfiler.Kind kind : ScriptProfiler.Kind.values())
+        {
+            SCARPET_BASELINE.put(kind, ScriptProfiler.getStats(kind));
+        }
+        ScriptProfiler.setReporting(true);
+        test_type = TYPE.SCARPET;
+        tick_health_elapsed = ticks;
+        tick_health_requested = ticks;
+        current_tick_start = 0L;
+        currentRequester = source;
+    }
+
+    /**
+     * @return whether ticks are profiled, either for a report, or for the history
+     */
+    public static boolean isProfiling()
+    {
+        return tick_health_requested != 0L || historySize > 0;
+    }
+
+    private static boolean isProfilingSections()
+    {
+        return current_tick_start != 0 && (historySize > 0 || (tick_health_requested != 0L && test_type == TYPE.GENERAL));
+    }
+
+    /**
+     * @return start time of a section, or 0 when sections are not profiled
+     */
+    public static long start_section()
+    {
+        return isProfilingSections() ? System.nanoTime() : 0L;
     }
 
     public static ProfilerToken start_entity_section(Level world, Entity e, TYPE type)
     {
         if (tick_health_requested == 0L || test_type != TYPE.ENTITY || current_tick_start == 0)
             return null;
-        return new ProfilerToken(type, e.getType(), world);
+        return new ProfilerToken(type, e.getType(), world, e.chunkPosition().toLong());
     }
 
     public static ProfilerToken start_block_entity_section(Level world, BlockEntity be, TYPE type)
     {
         if (tick_health_requested == 0L || test_type != TYPE.ENTITY || current_tick_start == 0)
             return null;
-        return new ProfilerToken(type, be.getType(), world);
+        return new ProfilerToken(type, be.getType(), world, ChunkPos.asLong(be.getBlockPos()));
     }
 
-    public static void end_current_section(ProfilerToken tok)
+    /**
+     * Ends a section started with {@link #start_section()}, with an id from {@link #sectionId(String)}
+     */
+    public static void end_section(int section, long start)
     {
-        if (tick_health_requested == 0L || test_type != TYPE.GENERAL || current_tick_start == 0 || tok == null)
+        if (start == 0L || !isProfilingSections())
             return;
-        long end_time = System.nanoTime();
-        if (tok.type == TYPE.GENERAL)
+        long time = System.nanoTime() - start;
+        if (Thread.currentThread() != serverThread)
+        {
+            record_off_thread(sectionNameOf(section), time);
+            return;
+        }
+        record_section(section, time);
+    }
+
+    public static void end_section(Level world, LevelSection section, long start)
+    {
+        if (start == 0L || !isProfilingSections())
+            return;
+        long time = System.nanoTime() - start;
+        if (world.isClientSide || Thread.currentThread() != serverThread)
+        {
+            // client levels are not kept in the history
+            record_off_thread(String.format("%s.%s%s", world.dimension().location(), section.name, world.isClientSide ? " (Client)" : ""), time);
+            return;
+        }
+        int[] ids = ((LevelInterface) world).getProfilerSections();
+        if (ids == null)
+        {
+            ids = levelSectionIds(world);
+            ((LevelInterface) world).setProfilerSections(ids);
+        }
+        record_section(ids[section.ordinal()], time);
+    }
+
+    private static void record_section(int section, long time)
+    {
+        if (section >= currentTickTimes.length)
+        {
+            // sections interned since, the arrays only grow here, on the server thread
+            int size = Math.max(currentTickTimes.length * 2, section + 1);
+            currentTickTimes = Arrays.copyOf(currentTickTimes, size);
+            reportTimes = Arrays.copyOf(reportTimes, size);
+        }
+        currentTickTimes[section] += time;
+        if (tick_health_requested != 0L && test_type == TYPE.GENERAL)
+            reportTimes[section] += time;
+    }
+
+    private static void record_off_thread(String section, long time)
+    {
+        if (tick_health_requested == 0L || test_type != TYPE.GENERAL)
+            return;
+        synchronized (OFF_THREAD_STATS)
+        {
+            OFF_THREAD_STATS.addTo(section, time);
+        }
+    }
+
+    /**
+     * Interns a section, callers keep the id, so timing it later needs no lookups
+     */
+    public static synchronized int sectionId(String name)
+    {
+        int id = SECTION_IDS.getInt(name);
+        if (id < 0)
+        {
+            id = SECTION_NAMES.size();
+            SECTION_NAMES.add(name);
+            SECTION_IDS.put(name, id);
+            sectionCount = SECTION_NAMES.size();
+        }
+        return id;
+    }
+
+    private static synchronized String sectionNameOf(int id)
+    {
+        return SECTION_NAMES.get(id);
+    }
+
+    private static int[] levelSectionIds(Level world)
+    {
+        int[] ids = new int[LEVEL_SECTIONS.length];
+        for (LevelSection section : LEVEL_SECTIONS)
+        {
+            ids[section.ordinal()] = sectionId(world.dimension().location() + "." + section.name);
+        }
+        return ids;
+    }
+
+    private static void collect_section_stats()
+    {
+        for (int id = 0; id < Math.min(reportTimes.length, sectionCount); id++)
+        {
+            if (reportTimes[id] != 0L)
+                SECTION_STATS.addTo(sectionNameOf(id), reportTimes[id]);
+        }
+        Arrays.fill(reportTimes, 0L);
+        synchronized (OFF_THREAD_STATS)
         {
-            Level world = tok.world;
-            String current_section = (world == null) ?
-                    (String) tok.section :
-                    String.format("%s.%s%s", world.dimension().location(), tok.section, world.isClientSide ? " (Client)" : "");
-            SECTION_STATS.addTo(current_section, end_time - tok.start);
+            OFF_THREAD_STATS.forEach(SECTION_STATS::addTo);
+            OFF_THREAD_STATS.clear();
         }
     }
 
+    /**
+     * Records the number of things processed by a section this tick, and how many are still waiting after
+     */
+    public static void record_section_calls(String section, long calls, long queued)
+    {
+        if (tick_health_requested == 0L || test_type != TYPE.GENERAL || current_tick_start == 0)
+            return;
+        SECTION_CALLS.addTo(section, calls);
+        SECTION_QUEUED.put(section, Math.max(queued, SECTION_QUEUED.getLong(section)));
+    }
+
     public static void end_current_entity_section(ProfilerToken tok)
     {
         if (tick_health_requested == 0L || test_type != TYPE.ENTITY || current_tick_start == 0 || tok == null)
@@ -153,10 +367,13 @@ public class CarpetProfiler
         Pair<Level,Object> section = Pair.of(tok.world, tok.section);
         ENTITY_TIMES.addTo(section, end_time - tok.start);
         ENTITY_COUNT.addTo(section, 1);
+        if (!tok.world.isClientSide)
+            CHUNK_TIMES.computeIfAbsent(tok.world, w -> new Long2LongOpenHashMap()).addTo(tok.chunk, end_time - tok.start);
     }
 
     public static void start_tick_profiling()
     {
+        serverThread = Thread.currentThread();
         current_tick_start = System.nanoTime();
     }
 
@@ -164,7 +381,16 @@ public class CarpetProfiler
     {
         if (current_tick_start == 0L)
             return;
-        SECTION_STATS.addTo("tick", System.nanoTime() - current_tick_start);
+        long tick_time = System.nanoTime() - current_tick_start;
+        if (historySize > 0)
+        {
+            currentTickTimes[TICK_SECTION] = tick_time;
+            record_history();
+        }
+        Arrays.fill(currentTickTimes, 0L);
+        if (tick_health_requested == 0L)
+            return;
+        SECTION_STATS.addTo("tick", tick_time);
         tick_health_elapsed--;
         if (tick_health_elapsed <= 0)
         {
@@ -172,25 +398,120 @@ public class CarpetProfiler
         }
     }
 
+    /**
+     * Sets how many last ticks are kept in the history, 0 to stop collecting it. Drops the current history.
+     */
+    public static void setHistorySize(int ticks)
+    {
+        historySize = ticks;
+        historyWidth = sectionCount;
+        history = new long[historySize * historyWidth];
+        historyHead = 0;
+        historyFilled = 0;
+    }
+
+    private static void record_history()
+    {
+        if (sectionCount > historyWidth)
+        {
+            // new sections showed up, like a dimension ticking for the first time
+            int width = sectionCount + 8;
+            long[] wider = new long[historySize * width];
+            for (int row = 0; row < historySize; row++)
+            {
+                System.arraycopy(history, row * historyWidth, wider, row * width, historyWidth);
+            }
+            history = wider;
+            historyWidth = width;
+        }
+        System.arraycopy(currentTickTimes, 0, history, historyHead * historyWidth, Math.min(historyWidth, currentTickTimes.length));
+        historyHead = (historyHead + 1) % historySize;
+        historyFilled = Math.min(historyFilled + 1, historySize);
+    }
+
+    private static long history_time(int ticksAgo, int section)
+    {
+        return history[Math.floorMod(historyHead - ticksAgo, historySize) * historyWidth + section];
+    }
+
+    /**
+     * Shows the average and the slowest of the last ticks kept in the history, with section times of the slowest one
+     */
+    public static void report_history(CommandSourceStack source, int ticks)
+    {
+        if (historySize == 0)
+        {
+            Messenger.m(source, "r Tick history is not collected, set profilerHistory rule to enable it");
+            return;
+        }
+        int count = Math.min(ticks, historyFilled);
+        if (count == 0)
+        {
+            Messenger.m(source, "r No ticks recorded yet");
+            return;
+        }
+        long total = 0L;
+        long slowest = -1L;
+        int slowestAgo = 0;
+        for (int ago = 1; ago <= count; ago++)
+        {
+            long time = history_time(ago, TICK_SECTION);
+            total += time;
+            if (time > slowest)
+            {
+                slowest = time;
+                slowestAgo = ago;
+            }
+        }
+        Messenger.m(source, "w ");
+        Messenger.m(source, "wb Average tick time over last " + count + " ticks: ", String.format("yb %.3fms", total / 1.0E6 / count));
+        Messenger.m(source, "wb Slowest tick, " + slowestAgo + " ticks ago: ", String.format("yb %.3fms", slowest / 1.0E6));
+        List<Integer> sections = new ArrayList<>();
+        for (int section = 0; section < Math.min(historyWidth, sectionCount); section++)
+        {
+            if (section != TICK_SECTION && history_time(slowestAgo, section) > 10000L)
+                sections.add(section);
+        }
+        int ago = slowestAgo;
+        sections.sort(Comparator.comparingLong((Integer section) -> history_time(ago, section)).reversed());
+        for (int section : sections)
+        {
+            Messenger.m(source, "w  - " + sectionNameOf(section) + ": ", String.format("y %.3fms", history_time(ago, section) / 1.0E6));
+        }
+    }
+
     public static void finalize_tick_report(MinecraftServer server)
     {
         if (test_type == TYPE.GENERAL)
             finalize_tick_report_for_time(server);
         if (test_type == TYPE.ENTITY)
             finalize_tick_report_for_entities(server);
+        if (test_type == TYPE.SCARPET)
+            finalize_tick_report_for_scarpet();
         cleanup_tick_report();
     }
 
     public static void cleanup_tick_report()
     {
         SECTION_STATS.clear();
+        SECTION_CALLS.clear();
+        SECTION_QUEUED.clear();
         ENTITY_TIMES.clear();
         ENTITY_COUNT.clear();
+        CHUNK_TIMES.clear();
+        SCARPET_BASELINE.clear();
+        ScriptProfiler.setReporting(false);
         test_type = TYPE.NONE;
         tick_health_elapsed = 0;
         tick_health_requested = 0;
         current_tick_start = 0L;
         currentRequester = null;
+        Arrays.fill(currentTickTimes, 0L);
+        Arrays.fill(reportTimes, 0L);
+        synchronized (OFF_THREAD_STATS)
+        {
+            OFF_THREAD_STATS.clear();
+        }
     }
 
     public static void finalize_tick_report_for_time(MinecraftServer server)
@@ -198,6 +519,7 @@ public class CarpetProfiler
         //print stats
         if (currentRequester == null)
             return;
+        collect_section_stats();
         long total_tick_time = SECTION_STATS.getLong("tick");
         double divider = 1.0D / tick_health_requested / 1000000;
         Messenger.m(currentRequester, "w ");
@@ -229,6 +551,12 @@ public class CarpetProfiler
                         "^ " + SCARPET_SECTIONS.get(section),
                         "di %.3fms".formatted(amount)
                 );
+                if (SECTION_CALLS.containsKey(section))
+                {
+                    Messenger.m(currentRequester, "gi  - %.1f calls per tick, up to %d queued".formatted(
+                            1.0D * SECTION_CALLS.getLong(section) / tick_health_requested, SECTION_QUEUED.getLong(section)
+                    ));
+                }
             }
         }
 
@@ -333,6 +661,96 @@ public class CarpetProfiler
                     (cli ? divider : divider_1) * sectionEntry.getLongValue()
             ));
         }
+        finalize_chunk_report(divider_1);
+    }
+
+    public static void finalize_tick_report_for_scarpet()
+    {
+        if (currentRequester == null)
+            return;
+        double divider = 1.0D / tick_health_requested / 1000000;
+        Messenger.m(currentRequester, "w ");
+        Messenger.m(currentRequester, "wb Average tick time: ", String.format("yb %.3fms", divider * SECTION_STATS.getLong("tick")));
+        for (ScriptProfiler.Kind kind : ScriptProfiler.Kind.values())
+        {
+            List<Map.Entry<String, ScriptProfiler.Stat>> stats = new ArrayList<>(ScriptProfiler.getStatsSince(kind, SCARPET_BASELINE.get(kind)).entrySet());
+            if (stats.isEmpty())
+                continue;
+            stats.sort(Comparator.comparingLong((Map.Entry<String, ScriptProfiler.Stat> e) -> e.getValue().nanos()).reversed());
+            Messenger.m(currentRequester, "wb Top 10 " + kind.key + ":");
+            for (Map.Entry<String, ScriptProfiler.Stat> stat : stats.subList(0, Math.min(10, stats.size())))
+            {
+                Messenger.m(currentRequester,
+                        "w  - " + stat.getKey() + ": ",
+                        String.format("y %.3fms", divider * stat.getValue().nanos()),
+                        String.format("g , %.1f calls per tick", 1.0D * stat.getValue().calls() / tick_health_requested));
+            }
+        }
+    }
+
+    private record ChunkTime(Level level, long pos, long time)
+    {
+    }
+
+    private static void finalize_chunk_report(double divider)
+    {
+        Map<ResourceKey<Level>, Long2DoubleMap> chunkTimes = new HashMap<>();
+        List<ChunkTime> chunks = new ArrayList<>();
+        List<ChunkTime> regions = new ArrayList<>();
+        CHUNK_TIMES.forEach((level, times) -> {
+            Long2DoubleOpenHashMap averages = new Long2DoubleOpenHashMap(times.size());
+            Long2LongOpenHashMap regionTimes = new Long2LongOpenHashMap();
+            for (Long2LongMap.Entry chunk : times.long2LongEntrySet())
+            {
+                long pos = chunk.getLongKey();
+                averages.put(pos, divider * chunk.getLongValue());
+                chunks.add(new ChunkTime(level, pos, chunk.getLongValue()));
+                regionTimes.addTo(ChunkPos.asLong(ChunkPos.getX(pos) >> REGION_SHIFT, ChunkPos.getZ(pos) >> REGION_SHIFT), chunk.getLongValue());
+            }
+            regionTimes.long2LongEntrySet().forEach(region -> regions.add(new ChunkTime(level, region.getLongKey(), region.getLongValue())));
+            chunkTimes.put(level.dimension(), averages);
+        });
+        lastChunkTimes = chunkTimes;
+        Comparator<ChunkTime> slowestFirst = Comparator.comparingLong(ChunkTime::time).reversed();
+        chunks.sort(slowestFirst);
+        regions.sort(slowestFirst);
+        Messenger.m(currentRequester, "wb Top 10 chunks:");
+        for (ChunkTime chunk : chunks.subList(0, Math.min(10, chunks.size())))
+        {
+            int x = ChunkPos.getX(chunk.pos());
+            int z = ChunkPos.getZ(chunk.pos());
+            String dim = dimensionName(chunk.level());
+            Messenger.m(currentRequester,
+                    String.format("w  - chunk %d, %d in %s: ", x, z, dim),
+                    String.format("^w blocks %d, %d to %d, %d", x << 4, z << 4, (x << 4) + 15, (z << 4) + 15),
+                    String.format("?/execute in %s run tp @s %d ~ %d", chunk.level().dimension().location(), (x << 4) + 8, (z << 4) + 8),
+                    String.format("y %.2fms", divider * chunk.time()));
+        }
+        Messenger.m(currentRequester, "wb Top 5 regions:");
+        for (ChunkTime region : regions.subList(0, Math.min(5, regions.size())))
+        {
+            int x = ChunkPos.getX(region.pos());
+            int z = ChunkPos.getZ(region.pos());
+            Messenger.m(currentRequester,
+                    String.format("w  - region r.%d.%d in %s: ", x, z, dimensionName(region.level())),
+                    String.format("^w chunks %d, %d to %d, %d", x << REGION_SHIFT, z << REGION_SHIFT, ((x + 1) << REGION_SHIFT) - 1, ((z + 1) << REGION_SHIFT) - 1),
+                    String.format("y %.2fms", divider * region.time()));
+        }
+    }
+
+    private static String dimensionName(Level level)
+    {
+        ResourceLocation dimkey = level.dimension().location();
+        return "minecraft".equals(dimkey.getNamespace())?dimkey.getPath():dimkey.toString();
+    }
+
+    /**
+     * @return average ms per tick spent on entities and block entities of each chunk, by packed chunk position,
+     * from the last entity report
+     */
+    public static Map<ResourceKey<Level>, Long2DoubleMap> getLastChunkTimes()
+    {
+        return lastChunkTimes;
     }
 
     private static <T> Iterable<Object2LongMap.Entry<T>> sortedByValue(Object2LongMap<T> mapToSort) {
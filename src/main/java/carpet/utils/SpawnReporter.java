@@ -43,13 +43,16 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SpawnReporter
 {
     private static final MobCategory[] CACHED_MOBCATEGORY_VALUES = MobCategory.values();
     public static boolean mockSpawns = false;
 
-    public static final HashMap<ResourceKey<Level>, Integer> chunkCounts = new HashMap<>();
+    // written by every level when it spawns mobs, which may happen on separate threads during tick warp
+    public static final Map<ResourceKey<Level>, Integer> chunkCounts = new ConcurrentHashMap<>();
 
     public static final HashMap<Pair<ResourceKey<Level>, MobCategory>, Object2LongOpenHashMap<EntityType<?>>> spawn_stats = new HashMap<>();
     public static double mobcap_exponent = 0.0D;